@@ -0,0 +1,131 @@
+package de.greenrobot.event;
+
+/**
+ * Bounded, serial lane for the deliveries of a single PostThread subscription. The invocation time of the subscription
+ * is tracked as an exponential moving average. While it stays above the threshold, the deliveries are moved from the
+ * posting thread to the lane; once it dropped below half the threshold and the lane is idle, they are invoked in the
+ * posting thread again. Only one event is in progress at a time, so the order of events is kept. The average starts
+ * at zero and a subscription is not offloaded before its first few invocations, so a single slow first invocation
+ * (e.g. loading classes) does not offload it.
+ * <p/>
+ * If the lane is full, the event is added to the dead letters (see {@link EventBus#getDeadLetters()}), a warning is
+ * logged and a {@link SubscriberExceptionEvent} is posted. The posting thread never waits: it may be the main thread
+ * or hold the lock of the EventBus (delivering sticky events).
+ */
+final class AdaptiveLane implements Runnable {
+
+    //转移到通道之前至少需要的调用次数
+    private final static int MIN_SAMPLES = 8;
+
+    private final EventBus eventBus;
+    private final long thresholdNanos;
+    private final int capacity;
+    private final PendingPostQueue queue;
+    //以下字段由本对象的锁保护
+    private int size;
+    private boolean running;
+    private boolean offloaded;
+    //调用时间的移动平均值,每次调用占1/8的权重;并发更新时丢失个别样本没有影响
+    private volatile long averageNanos;
+    //已记录的调用次数,达到MIN_SAMPLES后不再增加
+    private volatile int samples;
+
+    AdaptiveLane(EventBus eventBus, long thresholdNanos, int capacity) {
+        this.eventBus = eventBus;
+        this.thresholdNanos = thresholdNanos;
+        this.capacity = capacity;
+        queue = new PendingPostQueue();
+    }
+
+    /**
+     * Enqueues the event if the subscription is offloaded (which may change with this call). Returns false if the
+     * caller must invoke the subscription itself using {@link #invoke(Subscription, Object)}.
+     */
+    boolean enqueueIfOffloaded(Subscription subscription, Object event) {
+        synchronized (this) {
+            long average = averageNanos;
+            if (!offloaded) {
+                if (samples < MIN_SAMPLES || average <= thresholdNanos) {
+                    return false;
+                }
+                offloaded = true;
+                eventBus.getLogger().log(Logger.Level.DEBUG, "Offloading slow subscriber method {}",
+                        subscription.subscriberMethod.method);
+            } else if (size == 0 && !running && average < thresholdNanos / 2) {
+            	//已经恢复,并且队列中没有事件时才回到发送线程,保证事件的顺序
+                offloaded = false;
+                eventBus.getLogger().log(Logger.Level.DEBUG, "Subscriber method {} recovered",
+                        subscription.subscriberMethod.method);
+                return false;
+            }
+            if (size < capacity) {
+                queue.enqueue(PendingPost.obtainPendingPost(subscription, event));
+                size++;
+                if (!running) {
+                    running = true;
+                    eventBus.getExecutorService().execute(this);
+                }
+                return true;
+            }
+        }
+        //通道已满:不在发送线程中等待,也不在发送线程中调用(会打乱事件的顺序);
+        //在锁之外处理,因为发送的异常事件可能再次投递到本通道
+        eventBus.onAdaptiveLaneFull(subscription, event);
+        return true;
+    }
+
+    /** Invokes the subscription in the calling thread and measures the invocation time. */
+    void invoke(Subscription subscription, Object event) {
+        long started = System.nanoTime();
+        try {
+            eventBus.invokeSubscriber(subscription, event);
+        } finally {
+            record(System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public void run() {
+        boolean completed = false;
+        try {
+            while (true) {
+                PendingPost pendingPost;
+                synchronized (this) {
+                    pendingPost = queue.poll();
+                    if (pendingPost == null) {
+                        running = false;
+                        completed = true;
+                        return;
+                    }
+                    size--;
+                }
+                long started = System.nanoTime();
+                try {
+                    eventBus.invokeSubscriber(pendingPost);
+                } finally {
+                    record(System.nanoTime() - started);
+                }
+            }
+        } finally {
+            if (!completed) {
+            	//订阅方法抛出异常时(throwSubscriberException),在新的任务中继续处理剩余的事件
+                synchronized (this) {
+                    if (size > 0) {
+                        eventBus.getExecutorService().execute(this);
+                    } else {
+                        running = false;
+                    }
+                }
+            }
+        }
+    }
+
+    private void record(long nanos) {
+        long average = averageNanos;
+        averageNanos = average + (nanos - average) / 8;
+        if (samples < MIN_SAMPLES) {
+            samples++;
+        }
+    }
+
+}
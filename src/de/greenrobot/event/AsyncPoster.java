@@ -11,7 +11,10 @@ class AsyncPoster implements Runnable {
     }
 
     public void enqueue(Subscription subscription, Object event) {
-        PendingPost pendingPost = PendingPost.obtainPendingPost(subscription, event);
+        enqueue(PendingPost.obtainPendingPost(subscription, event));
+    }
+
+    void enqueue(PendingPost pendingPost) {
         queue.enqueue(pendingPost);
         eventBus.getExecutorService().execute(this);
     }
@@ -0,0 +1,11 @@
+package de.greenrobot.event;
+
+/**
+ * Marker interface for subscribers whose PostThread subscriber methods may also be invoked in a background thread.
+ * If adaptive offloading is enabled with {@link EventBusBuilder#adaptiveOffload(long, int)}, EventBus moves the
+ * deliveries of such a subscriber method to its own background lane while the method is slow. Events are still
+ * delivered to the method one at a time and in order, but the method can not cancel the event delivery while it runs
+ * in the lane.
+ */
+public interface AsyncTolerantSubscriber {
+}
@@ -1,7 +1,5 @@
 package de.greenrobot.event;
 
-import android.util.Log;
-
 final class BackgroundPoster implements Runnable {
 
     private final PendingPostQueue queue;
@@ -18,7 +16,10 @@ final class BackgroundPoster implements Runnable {
     //用于添加带触发的订阅对象中的订阅方法
     public void enqueue(Subscription subscription, Object event) {
     	//根据提供的订阅对象和订阅方法创建挂载订阅对象
-        PendingPost pendingPost = PendingPost.obtainPendingPost(subscription, event);
+        enqueue(PendingPost.obtainPendingPost(subscription, event));
+    }
+
+    void enqueue(PendingPost pendingPost) {
         synchronized (this) {
         	//将挂载对象放置到队列中
             queue.enqueue(pendingPost);
@@ -51,7 +52,7 @@ final class BackgroundPoster implements Runnable {
                     eventBus.invokeSubscriber(pendingPost);
                 }
             } catch (InterruptedException e) {
-                Log.w("Event", Thread.currentThread().getName() + " was interruppted", e);
+                eventBus.getLogger().log(Logger.Level.WARN, "{} was interruppted", Thread.currentThread().getName(), e);
             }
         } finally {
         	//执行完成后,设置运行标记位为false
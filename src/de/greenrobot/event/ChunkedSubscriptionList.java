@@ -0,0 +1,215 @@
+package de.greenrobot.event;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, priority-ordered list of subscriptions used for event types with a large number of subscribers. The
+ * subscriptions are stored in chunks; modifications return a new list, which shares all untouched chunks with the old
+ * one. Thus adding or removing a subscription copies only the affected chunk and the chunk table, not the whole list.
+ * Like a snapshot of {@link java.util.concurrent.CopyOnWriteArrayList}, posting threads may iterate over an instance
+ * while the registry is replacing it.
+ */
+final class ChunkedSubscriptionList extends AbstractList<Subscription> implements RandomAccess {
+
+    //每个块的目标大小,块超过两倍大小时进行拆分,相邻的块都不到一半时进行合并
+    static final int CHUNK_SIZE = 64;
+
+    //存储订阅信息的块,每个块的数组长度就是其中订阅信息的个数,块本身不会被修改
+    private final Subscription[][] chunks;
+    //每个块中第一个订阅信息在整个集合中的位置,用于get(int)的二分查找
+    private final int[] offsets;
+    private final int size;
+
+    private ChunkedSubscriptionList(Subscription[][] chunks) {
+        this.chunks = chunks;
+        offsets = new int[chunks.length];
+        int count = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            offsets[i] = count;
+            count += chunks[i].length;
+        }
+        size = count;
+    }
+
+    //根据给定的订阅信息集合创建分块集合
+    static ChunkedSubscriptionList of(List<Subscription> subscriptions) {
+        int size = subscriptions.size();
+        int chunkCount = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Subscription[][] chunks = new Subscription[chunkCount][];
+        for (int i = 0; i < chunkCount; i++) {
+            int start = i * CHUNK_SIZE;
+            int length = Math.min(CHUNK_SIZE, size - start);
+            Subscription[] chunk = new Subscription[length];
+            for (int j = 0; j < length; j++) {
+                chunk[j] = subscriptions.get(start + j);
+            }
+            chunks[i] = chunk;
+        }
+        return new ChunkedSubscriptionList(chunks);
+    }
+
+    @Override
+    public Subscription get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int chunkIndex = findChunk(index);
+        return chunks[chunkIndex][index - offsets[chunkIndex]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Subscription> iterator() {
+        return new ChunkIterator();
+    }
+
+    /**
+     * Returns a new list with the given subscriptions inserted at the given index. Only the chunk containing the index
+     * is copied (and split if it grows too large).
+     */
+    ChunkedSubscriptionList insertAll(int index, List<Subscription> newSubscriptions) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        if (chunks.length == 0) {
+            return of(newSubscriptions);
+        }
+        int chunkIndex = index == size ? chunks.length - 1 : findChunk(index);
+        Subscription[] chunk = chunks[chunkIndex];
+        int indexInChunk = index - offsets[chunkIndex];
+        int added = newSubscriptions.size();
+
+        Subscription[] grown = new Subscription[chunk.length + added];
+        System.arraycopy(chunk, 0, grown, 0, indexInChunk);
+        for (int i = 0; i < added; i++) {
+            grown[indexInChunk + i] = newSubscriptions.get(i);
+        }
+        System.arraycopy(chunk, indexInChunk, grown, indexInChunk + added, chunk.length - indexInChunk);
+
+        if (grown.length <= 2 * CHUNK_SIZE) {
+            Subscription[][] newChunks = chunks.clone();
+            newChunks[chunkIndex] = grown;
+            return new ChunkedSubscriptionList(newChunks);
+        }
+        //块过大,拆分为多个标准大小的块
+        int splitCount = (grown.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Subscription[][] newChunks = new Subscription[chunks.length - 1 + splitCount][];
+        System.arraycopy(chunks, 0, newChunks, 0, chunkIndex);
+        for (int i = 0; i < splitCount; i++) {
+            int start = i * CHUNK_SIZE;
+            int length = Math.min(CHUNK_SIZE, grown.length - start);
+            Subscription[] split = new Subscription[length];
+            System.arraycopy(grown, start, split, 0, length);
+            newChunks[chunkIndex + i] = split;
+        }
+        System.arraycopy(chunks, chunkIndex + 1, newChunks, chunkIndex + splitCount, chunks.length - chunkIndex - 1);
+        return new ChunkedSubscriptionList(newChunks);
+    }
+
+    /**
+     * Returns a list without the subscriptions that are no longer active. Only chunks containing inactive
+     * subscriptions are copied; chunks becoming empty are dropped, and neighbouring chunks which are both less than
+     * half full are merged. Returns this list if all subscriptions are active.
+     */
+    ChunkedSubscriptionList removeInactive() {
+        Subscription[][] newChunks = null;
+        int newChunkCount = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            Subscription[] chunk = chunks[i];
+            int activeCount = 0;
+            for (Subscription subscription : chunk) {
+                if (subscription.active) {
+                    activeCount++;
+                }
+            }
+            if (activeCount < chunk.length && newChunks == null) {
+                newChunks = new Subscription[chunks.length][];
+                System.arraycopy(chunks, 0, newChunks, 0, i);
+                newChunkCount = i;
+            }
+            if (newChunks != null && activeCount > 0) {
+                Subscription[] kept = chunk;
+                if (activeCount < chunk.length) {
+                    kept = new Subscription[activeCount];
+                    int j = 0;
+                    for (Subscription subscription : chunk) {
+                        if (subscription.active) {
+                            kept[j++] = subscription;
+                        }
+                    }
+                }
+                //与前一个块都不到一半时进行合并,避免反复注册和注销后留下大量几乎为空的块
+                Subscription[] previous = newChunkCount > 0 ? newChunks[newChunkCount - 1] : null;
+                if (previous != null && previous.length < CHUNK_SIZE / 2 && kept.length < CHUNK_SIZE / 2) {
+                    Subscription[] merged = new Subscription[previous.length + kept.length];
+                    System.arraycopy(previous, 0, merged, 0, previous.length);
+                    System.arraycopy(kept, 0, merged, previous.length, kept.length);
+                    newChunks[newChunkCount - 1] = merged;
+                } else {
+                    newChunks[newChunkCount++] = kept;
+                }
+            }
+        }
+        if (newChunks == null) {
+            return this;
+        }
+        Subscription[][] trimmed = new Subscription[newChunkCount][];
+        System.arraycopy(newChunks, 0, trimmed, 0, newChunkCount);
+        return new ChunkedSubscriptionList(trimmed);
+    }
+
+    //二分查找给定位置所在的块
+    private int findChunk(int index) {
+        int low = 0;
+        int high = offsets.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    //按块顺序遍历,避免每个元素都进行块的查找
+    private final class ChunkIterator implements Iterator<Subscription> {
+        private int chunkIndex;
+        private int indexInChunk;
+
+        @Override
+        public boolean hasNext() {
+            while (chunkIndex < chunks.length) {
+                if (indexInChunk < chunks[chunkIndex].length) {
+                    return true;
+                }
+                chunkIndex++;
+                indexInChunk = 0;
+            }
+            return false;
+        }
+
+        @Override
+        public Subscription next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunks[chunkIndex][indexInChunk++];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
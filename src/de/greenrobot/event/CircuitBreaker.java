@@ -0,0 +1,131 @@
+package de.greenrobot.event;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker of a single {@link Subscription}. Invocations are counted in consecutive windows of a fixed number of
+ * calls; once the failures within a window reach the configured rate, the breaker opens and invocations are skipped.
+ * After the cooldown, a single invocation is let through as a probe (half open): its success closes the breaker, its
+ * failure opens it again. Only the probe's result decides: results of invocations allowed before the breaker opened,
+ * which complete while it is open or half open, are ignored. All state changes are lock-free.
+ */
+final class CircuitBreaker {
+
+    /** Result of {@link #acquire()}. */
+    static final int DENIED = 0;
+    static final int ALLOWED = 1;
+    static final int PROBE = 2;
+
+    private final Config config;
+    private final AtomicInteger state;
+    //当前窗口内的调用次数(高32位)和失败次数(低32位)
+    private final AtomicLong window;
+    private volatile long openedAt;
+    private final AtomicLong skippedCount;
+
+    CircuitBreaker(Config config) {
+        this.config = config;
+        state = new AtomicInteger(CircuitBreakerEvent.State.CLOSED.ordinal());
+        window = new AtomicLong();
+        skippedCount = new AtomicLong();
+    }
+
+    /**
+     * Checks if the subscriber may be invoked. Returns {@link #PROBE} for the single invocation that switched the
+     * breaker to half open; the caller must publish this transition.
+     */
+    int acquire() {
+        int current = state.get();
+        if (current == CircuitBreakerEvent.State.CLOSED.ordinal()) {
+            return ALLOWED;
+        }
+        if (current == CircuitBreakerEvent.State.OPEN.ordinal()
+                && SystemClock.uptimeMillis() - openedAt >= config.cooldownMillis
+                && state.compareAndSet(current, CircuitBreakerEvent.State.HALF_OPEN.ordinal())) {
+            return PROBE;
+        }
+        //断开状态或者已经有其他调用在进行探测
+        skippedCount.incrementAndGet();
+        return DENIED;
+    }
+
+    /**
+     * Records a successful invocation; probe tells if {@link #acquire()} returned {@link #PROBE} for it. Returns true
+     * if this closed a half open breaker.
+     */
+    boolean onSuccess(boolean probe) {
+        if (probe) {
+            window.set(0);
+            return state.compareAndSet(CircuitBreakerEvent.State.HALF_OPEN.ordinal(),
+                    CircuitBreakerEvent.State.CLOSED.ordinal());
+        }
+        //断开之前开始的调用在断开后才结束时不计数
+        if (state.get() == CircuitBreakerEvent.State.CLOSED.ordinal()) {
+            record(false);
+        }
+        return false;
+    }
+
+    /**
+     * Records a failed invocation; probe tells if {@link #acquire()} returned {@link #PROBE} for it. Returns the
+     * previous state if this opened the breaker, otherwise null.
+     */
+    CircuitBreakerEvent.State onFailure(boolean probe) {
+        int current = state.get();
+        if ((probe && current == CircuitBreakerEvent.State.HALF_OPEN.ordinal())
+                || (!probe && current == CircuitBreakerEvent.State.CLOSED.ordinal() && record(true))) {
+            openedAt = SystemClock.uptimeMillis();
+            if (state.compareAndSet(current, CircuitBreakerEvent.State.OPEN.ordinal())) {
+                return CircuitBreakerEvent.State.values()[current];
+            }
+        }
+        return null;
+    }
+
+    /** Returns the time until an open breaker lets a probe through, or 0 if it is not open. */
+    long getRemainingCooldownMillis() {
+        if (state.get() != CircuitBreakerEvent.State.OPEN.ordinal()) {
+            return 0;
+        }
+        return Math.max(0, config.cooldownMillis - (SystemClock.uptimeMillis() - openedAt));
+    }
+
+    CircuitBreakerEvent.State getState() {
+        return CircuitBreakerEvent.State.values()[state.get()];
+    }
+
+    long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    //在当前窗口中计数,返回失败次数是否达到了断开的阈值;窗口满了或断开时重新计数
+    private boolean record(boolean failure) {
+        while (true) {
+            long current = window.get();
+            long calls = (current >>> 32) + 1;
+            long failures = (current & 0xffffffffL) + (failure ? 1 : 0);
+            boolean trip = failure && failures >= config.failuresToTrip;
+            long next = trip || calls >= config.windowSize ? 0 : (calls << 32) | failures;
+            if (window.compareAndSet(current, next)) {
+                return trip;
+            }
+        }
+    }
+
+    //建造器中的配置,所有订阅信息共用
+    static final class Config {
+        final int windowSize;
+        final int failuresToTrip;
+        final long cooldownMillis;
+
+        Config(float failureRate, int windowSize, long cooldownMillis) {
+            this.windowSize = windowSize;
+            this.failuresToTrip = Math.max(1, (int) Math.ceil(failureRate * windowSize));
+            this.cooldownMillis = cooldownMillis;
+        }
+    }
+
+}
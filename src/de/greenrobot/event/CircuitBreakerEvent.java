@@ -0,0 +1,47 @@
+package de.greenrobot.event;
+
+import java.lang.reflect.Method;
+
+/**
+ * This Event is posted by EventBus when the circuit breaker of a subscriber method changes its state.
+ *
+ * @see EventBusBuilder#circuitBreaker(float, int, long)
+ */
+public final class CircuitBreakerEvent {
+
+    public enum State {
+        /** Events are delivered to the subscriber method. */
+        CLOSED,
+        /** Events are not delivered to the subscriber method until the cooldown passed. */
+        OPEN,
+        /** A single event is delivered to probe if the subscriber method works again. */
+        HALF_OPEN
+    }
+
+    /** The {@link EventBus} instance the subscriber is registered to. */
+    public final EventBus eventBus;
+
+    /** The subscriber, or null if a weakly registered subscriber was garbage collected. */
+    public final Object subscriber;
+
+    /** The subscriber method the circuit breaker belongs to. */
+    public final Method subscriberMethod;
+
+    public final State previousState;
+
+    public final State state;
+
+    /** Number of events skipped by the circuit breaker since registration. */
+    public final long skippedCount;
+
+    public CircuitBreakerEvent(EventBus eventBus, Object subscriber, Method subscriberMethod, State previousState,
+            State state, long skippedCount) {
+        this.eventBus = eventBus;
+        this.subscriber = subscriber;
+        this.subscriberMethod = subscriberMethod;
+        this.previousState = previousState;
+        this.state = state;
+        this.skippedCount = skippedCount;
+    }
+
+}
@@ -0,0 +1,273 @@
+package de.greenrobot.event;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A group of equivalent subscribers (competing consumers) for one event type: each event is delivered to exactly one
+ * member instead of to all of them. Register more members to spread the work over more threads.
+ * <p/>
+ * An event goes to the member with the least queued and running events. Each member processes its events one at a time
+ * in a thread of the EventBus thread pool. Thus, only members with PostThread or Async subscriber methods are accepted;
+ * other thread modes are rejected with an {@link EventBusException}. A member running out of events steals events from
+ * the member with the longest queue, so the order of events is not kept.
+ * <p/>
+ * Members get their own circuit breaker and retry policy like regular subscribers (see
+ * {@link EventBusBuilder#circuitBreaker(float, int, long)} and
+ * {@link EventBusBuilder#retryPolicy(Class, Class, RetryPolicy)}); retries are delivered to the same member in a
+ * background thread, outside of its queue. Adaptive offloading does not apply, as members never run in the posting
+ * thread.
+ *
+ * @see EventBus#createConsumerGroup(Class)
+ */
+public final class ConsumerGroup {
+
+    private static final Method DISPATCH_METHOD;
+
+    static {
+        try {
+            DISPATCH_METHOD = ConsumerGroup.class.getDeclaredMethod("dispatch", Object.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final EventBus eventBus;
+    private final Class<?> eventType;
+    //在EventBus中代替所有成员进行订阅的订阅方法
+    private final List<SubscriberMethod> dispatchMethods;
+    private final CopyOnWriteArrayList<Member> members;
+
+    ConsumerGroup(EventBus eventBus, Class<?> eventType) {
+        this.eventBus = eventBus;
+        this.eventType = eventType;
+        dispatchMethods = Collections.singletonList(new SubscriberMethod(DISPATCH_METHOD, ThreadMode.PostThread,
+                eventType));
+        members = new CopyOnWriteArrayList<Member>();
+    }
+
+    public Class<?> getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Adds the subscriber to the group. It must have an event handler method for exactly the event type of the group,
+     * using the thread mode PostThread or Async. The group subscribes to the EventBus with its first member.
+     */
+    public synchronized void register(Object subscriber) {
+        Subscription subscription = null;
+        for (SubscriberMethod subscriberMethod : eventBus.findSubscriberMethods(subscriber.getClass())) {
+            if (subscriberMethod.eventType == eventType) {
+                if (subscriberMethod.threadMode != ThreadMode.PostThread
+                        && subscriberMethod.threadMode != ThreadMode.Async) {
+                    throw new EventBusException("Subscriber method " + subscriberMethod.method + " uses thread mode "
+                            + subscriberMethod.threadMode + ", but consumer groups support PostThread and Async only");
+                }
+                subscription = eventBus.newMemberSubscription(subscriber, subscriberMethod);
+                break;
+            }
+        }
+        if (subscription == null) {
+            throw new EventBusException("Subscriber " + subscriber.getClass() + " has no method for event " + eventType);
+        }
+        if (indexOf(subscriber) >= 0) {
+            throw new EventBusException("Subscriber " + subscriber.getClass() + " already registered to group of "
+                    + eventType);
+        }
+        members.add(new Member(this, subscription));
+        if (members.size() == 1) {
+            eventBus.register(this);
+        }
+    }
+
+    /**
+     * Removes the subscriber from the group. Its queued events are handed over to the remaining members; if it was the
+     * last member, the group unsubscribes from the EventBus and the queued events are dropped.
+     */
+    public synchronized void unregister(Object subscriber) {
+        int index = indexOf(subscriber);
+        if (index < 0) {
+            eventBus.getLogger().log(Logger.Level.WARN, "Subscriber to unregister was not in group: {}",
+                    subscriber.getClass());
+            return;
+        }
+        Member member = members.remove(index);
+        member.subscription.active = false;
+        if (members.isEmpty()) {
+            eventBus.unregister(this);
+        }
+        Object event;
+        while ((event = member.poll()) != null) {
+            if (members.isEmpty()) {
+                eventBus.getLogger().log(Logger.Level.WARN, "Dropped event {} of group without members", event);
+            } else {
+                dispatch(event);
+            }
+        }
+    }
+
+    /** Returns the current members' statistics, in registration order. */
+    public List<MemberStats> getMemberStats() {
+        List<MemberStats> stats = new ArrayList<MemberStats>();
+        for (Member member : members) {
+            stats.add(new MemberStats(member.subscription.getSubscriber(), member.processedCount.get(),
+                    member.stolenCount.get(), member.depth.get()));
+        }
+        return stats;
+    }
+
+    List<SubscriberMethod> getDispatchMethods() {
+        return dispatchMethods;
+    }
+
+    //由EventBus在发送线程中调用:交给负载最小的成员
+    void dispatch(Object event) {
+        Member leastLoaded = null;
+        int minLoad = Integer.MAX_VALUE;
+        for (Member member : members) {
+            int load = member.getLoad();
+            if (load < minLoad) {
+                leastLoaded = member;
+                minLoad = load;
+                if (load == 0) {
+                    break;
+                }
+            }
+        }
+        if (leastLoaded == null) {
+            eventBus.getLogger().log(Logger.Level.WARN, "Dropped event {} of group without members", event);
+        } else {
+            leastLoaded.enqueue(event);
+            if (!leastLoaded.subscription.active) {
+            	//成员在被选中后注销了:将其队列中剩余的事件重新分发
+                Object pending;
+                while ((pending = leastLoaded.poll()) != null) {
+                    dispatch(pending);
+                }
+            }
+        }
+    }
+
+    //从队列最长的成员处取得一个事件
+    private Object steal(Member thief) {
+        Member victim = null;
+        int maxDepth = 0;
+        for (Member member : members) {
+            int depth = member.depth.get();
+            if (member != thief && depth > maxDepth) {
+                victim = member;
+                maxDepth = depth;
+            }
+        }
+        return victim != null ? victim.poll() : null;
+    }
+
+    private int indexOf(Object subscriber) {
+        for (int i = 0; i < members.size(); i++) {
+            if (members.get(i).subscription.getSubscriber() == subscriber) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Statistics of a single member of a {@link ConsumerGroup}. */
+    public static final class MemberStats {
+        public final Object subscriber;
+        /** Number of events processed by the member, including stolen ones. */
+        public final long processedCount;
+        /** Number of events the member stole from other members. */
+        public final long stolenCount;
+        /** Number of events waiting in the member's queue. */
+        public final int queueDepth;
+
+        MemberStats(Object subscriber, long processedCount, long stolenCount, int queueDepth) {
+            this.subscriber = subscriber;
+            this.processedCount = processedCount;
+            this.stolenCount = stolenCount;
+            this.queueDepth = queueDepth;
+        }
+    }
+
+    //成员的队列在线程池中处理,同一时间只有一个任务
+    private static final class Member implements Runnable {
+        final ConsumerGroup group;
+        final Subscription subscription;
+        final ConcurrentLinkedQueue<Object> queue;
+        final AtomicInteger depth;
+        final AtomicBoolean scheduled;
+        final AtomicLong processedCount;
+        final AtomicLong stolenCount;
+        volatile boolean busy;
+
+        Member(ConsumerGroup group, Subscription subscription) {
+            this.group = group;
+            this.subscription = subscription;
+            queue = new ConcurrentLinkedQueue<Object>();
+            depth = new AtomicInteger();
+            scheduled = new AtomicBoolean();
+            processedCount = new AtomicLong();
+            stolenCount = new AtomicLong();
+        }
+
+        int getLoad() {
+            return depth.get() + (busy ? 1 : 0);
+        }
+
+        void enqueue(Object event) {
+            depth.incrementAndGet();
+            queue.offer(event);
+            schedule();
+        }
+
+        Object poll() {
+            Object event = queue.poll();
+            if (event != null) {
+                depth.decrementAndGet();
+            }
+            return event;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (subscription.active) {
+                    Object event = poll();
+                    if (event == null) {
+                        event = group.steal(this);
+                        if (event == null) {
+                            break;
+                        }
+                        stolenCount.incrementAndGet();
+                    }
+                    busy = true;
+                    try {
+                        group.eventBus.invokeSubscriber(subscription, event);
+                    } finally {
+                        busy = false;
+                        processedCount.incrementAndGet();
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                if (subscription.active && !queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                group.eventBus.getExecutorService().execute(this);
+            }
+        }
+    }
+
+}
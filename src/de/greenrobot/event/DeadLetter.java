@@ -0,0 +1,41 @@
+package de.greenrobot.event;
+
+import java.lang.reflect.Method;
+
+/**
+ * An event which could not be delivered to a subscriber method within the attempts of its {@link RetryPolicy}, or
+ * which was rejected because the subscriber method's adaptive offload lane was full.
+ *
+ * @see EventBus#getDeadLetters()
+ * @see EventBus#redriveDeadLetters()
+ */
+public final class DeadLetter {
+
+    final Subscription subscription;
+
+    /** The event which could not be delivered. */
+    public final Object event;
+
+    /** The subscriber method which failed. */
+    public final Method subscriberMethod;
+
+    /** The Throwable thrown by the last attempt, or an {@link EventBusException} if the lane was full. */
+    public final Throwable throwable;
+
+    /** Number of failed deliveries (0 if the lane was full). */
+    public final int attempts;
+
+    DeadLetter(Subscription subscription, Object event, Throwable throwable, int attempts) {
+        this.subscription = subscription;
+        this.event = event;
+        this.subscriberMethod = subscription.subscriberMethod.method;
+        this.throwable = throwable;
+        this.attempts = attempts;
+    }
+
+    /** Returns the subscriber, or null if a weakly registered subscriber was garbage collected. */
+    public Object getSubscriber() {
+        return subscription.getSubscriber();
+    }
+
+}
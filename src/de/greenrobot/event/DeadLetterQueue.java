@@ -0,0 +1,59 @@
+package de.greenrobot.event;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Bounded queue of {@link DeadLetter}s. If the queue is full, the oldest dead letter is dropped. Dead letters of
+ * unregistered subscribers are removed, so the queue does not keep them reachable.
+ */
+final class DeadLetterQueue {
+
+    private final int capacity;
+    private final LinkedList<DeadLetter> deadLetters;
+    private long droppedCount;
+
+    DeadLetterQueue(int capacity) {
+        this.capacity = capacity;
+        deadLetters = new LinkedList<DeadLetter>();
+    }
+
+    synchronized void add(DeadLetter deadLetter) {
+        //在注销之后才失败的投递不再加入;与removeInactive使用同一个锁,所以不会遗漏
+        if (!deadLetter.subscription.active) {
+            return;
+        }
+        if (deadLetters.size() >= capacity) {
+            deadLetters.removeFirst();
+            droppedCount++;
+        }
+        deadLetters.addLast(deadLetter);
+    }
+
+    synchronized List<DeadLetter> getAll() {
+        return new ArrayList<DeadLetter>(deadLetters);
+    }
+
+    /** Returns all dead letters, oldest first, and removes them from the queue. */
+    synchronized List<DeadLetter> drain() {
+        List<DeadLetter> drained = new ArrayList<DeadLetter>(deadLetters);
+        deadLetters.clear();
+        return drained;
+    }
+
+    /** Removes the dead letters of unregistered subscribers, which must not be kept reachable. */
+    synchronized void removeInactive() {
+        for (Iterator<DeadLetter> iterator = deadLetters.iterator(); iterator.hasNext(); ) {
+            if (!iterator.next().subscription.active) {
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+}
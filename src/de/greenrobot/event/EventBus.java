@@ -1,17 +1,25 @@
 package de.greenrobot.event;
 
 import android.os.Looper;
-import android.util.Log;
+import android.os.SystemClock;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class EventBus {
 
@@ -23,10 +31,22 @@ public class EventBus {
     //本集合用于缓存订阅类型和此类型对应的父类和接口的集合---------------------------------------------------------------------------------->关键数据结构
     private static final Map<Class<?>, List<Class<?>>> eventTypesCache = new HashMap<Class<?>, List<Class<?>>>();
     //本集合用于存储  订阅方法中的参数类型   和这个参数类型对应的订阅者和订阅方法的订阅信息集合        即一个参数类型可以对应多个不同的订阅对象的同一个订阅方法
-    private final Map<Class<?>, CopyOnWriteArrayList<Subscription>> subscriptionsByEventType;
-    //用于存储本EventBus对象中订阅的对象和对应的方法
-    private final Map<Object, List<Class<?>>> typesBySubscriber;
-    private final Map<Class<?>, Object> stickyEvents;
+    //集合中的订阅信息集合不会被修改,注册和注销时整体替换:订阅者较少时使用CopyOnWriteArrayList,较多时使用ChunkedSubscriptionList
+    private final Map<Class<?>, List<Subscription>> subscriptionsByEventType;
+    //订阅信息的索引:每个事件类型对应一个hash集合(订阅对象的identity + 订阅方法的key值),用于快速检测重复注册
+    private final Map<Class<?>, Set<Subscription>> subscriptionIndexByEventType;
+    //用于存储本EventBus对象中订阅的对象和其对应的订阅信息------>使用IdentityHashMap,不依赖订阅者自身的equals/hashCode;注销时直接拿到订阅信息,无需再遍历查找
+    private final Map<Object, List<Subscription>> subscriptionsBySubscriber;
+    //使用弱引用注册的订阅对象和其对应的订阅信息,键值为订阅对象的弱引用
+    private final Map<SubscriberReference, List<Subscription>> subscriptionsByWeakSubscriber;
+    //被回收的弱引用订阅对象会放入此队列,在注册和注销时批量清除
+    private final ReferenceQueue<Object> collectedSubscribers;
+    //存储sticky事件,不需要加锁
+    private final StickyEventStore stickyEvents;
+    //全局监听对象,发送每个事件时直接调用,不需要查找订阅信息
+    private final List<TapRegistration> taps;
+    //事件类型 -> 回放缓存,创建后不再修改;没有配置时为null
+    private final Map<Class<?>, ReplayBuffer> replayBuffers;
 
     //创建本地线程共享变量
     private final ThreadLocal<PostingThreadState> currentPostingThreadState = new ThreadLocal<PostingThreadState>() {
@@ -48,6 +68,8 @@ public class EventBus {
     private final SubscriberMethodFinder subscriberMethodFinder;
     //用于存储线程池对象
     private final ExecutorService executorService;
+    //日志对象,消息只在对应的级别开启时才进行格式化
+    private final Logger logger;
 
     private final boolean throwSubscriberException;
     private final boolean logSubscriberExceptions;
@@ -56,6 +78,37 @@ public class EventBus {
     private final boolean sendNoSubscriberEvent;
     //用于标示是否允许使用类型的父类和接口类型
     private final boolean eventInheritance;
+    //汇总没有订阅者的事件,定期发送汇总事件;没有启用时为null
+    private final NoSubscriberAggregator noSubscriberAggregator;
+    //在时间窗口内合并重复的订阅者异常;没有启用时为null
+    private final SubscriberExceptionAggregator subscriberExceptionAggregator;
+    //每个订阅信息的断路器配置;没有启用时为null
+    private final CircuitBreaker.Config circuitBreakerConfig;
+    //订阅者类 -> 事件类型 -> 重试策略;没有配置时为null
+    private final Map<Class<?>, Map<Class<?>, RetryPolicy>> retryPolicies;
+    private final RetryPoster retryPoster;
+    //重试次数用完的事件
+    private final DeadLetterQueue deadLetters;
+    //监控超过时间预算的订阅方法;没有启用时为null
+    private final SubscriberWatchdog watchdog;
+    //自适应转移慢的订阅方法的阈值和通道容量,阈值为0表示没有启用
+    private final long adaptiveOffloadThresholdNanos;
+    private final int adaptiveOffloadLaneCapacity;
+    //订阅信息个数达到此值时,使用分块存储订阅信息
+    private final int largeFanOutThreshold;
+    //按事件类型配置的继承关系开关、强制使用的线程模式以及叶子类型;没有配置时为null
+    private final Map<Class<?>, Boolean> eventInheritanceByType;
+    private final Map<Class<?>, ThreadMode> threadModeByType;
+    private final Set<Class<?>> leafEventTypes;
+    //同一优先级的PostThread订阅方法并行调用的事件类型;没有配置时为null
+    private final Set<Class<?>> parallelFanOutTypes;
+    //并行调用使用的线程池,不限制线程个数,发送线程等待时不会因为没有空闲线程而死锁;没有配置并行类型时为null
+    private final ExecutorService fanOutExecutor;
+    //事件类 -> 发送时需要查找订阅信息的事件类型(继承关系中有订阅信息或回放缓存的类型);
+    //发送时不加锁读取,只在同步块中计算和清空(订阅的事件类型改变时),所以不会保存过期的结果
+    private final ConcurrentHashMap<Class<?>, List<Class<?>>> postEventTypesCache;
+    //曾经有过订阅信息(或回放缓存)的事件类型,用于不加锁地判断事件类型一定没有订阅者
+    private final EventTypeFilter subscribedEventTypes;
 
     //获取框架默认的EventBus对象------>内部使用默认的建造器对象来创建EventBus对象
     public static EventBus getDefault() {
@@ -77,24 +130,89 @@ public class EventBus {
 
     //根据给定的建造器来创建EventBus对象---------->创建EventBus对象最终都会走这个方法     主要是完成一些初始化处理
     EventBus(EventBusBuilder builder) {
-        subscriptionsByEventType = new HashMap<Class<?>, CopyOnWriteArrayList<Subscription>>();
+        subscriptionsByEventType = new HashMap<Class<?>, List<Subscription>>();
+        subscriptionIndexByEventType = new HashMap<Class<?>, Set<Subscription>>();
         //初始化创建存储订阅对象的集合
-        typesBySubscriber = new HashMap<Object, List<Class<?>>>();
-        stickyEvents = new ConcurrentHashMap<Class<?>, Object>();
+        subscriptionsBySubscriber = new IdentityHashMap<Object, List<Subscription>>();
+        subscriptionsByWeakSubscriber = new HashMap<SubscriberReference, List<Subscription>>();
+        collectedSubscribers = new ReferenceQueue<Object>();
+        logger = builder.getLogger();
+        stickyEvents = new StickyEventStore(builder, logger);
+        replayBuffers = createReplayBuffers(builder.replayBufferConfigs);
+        taps = new CopyOnWriteArrayList<TapRegistration>();
         //创建用于向主线程发送消息,触发需要订阅消息的对象
         mainThreadPoster = new HandlerPoster(this, Looper.getMainLooper(), 10);
         backgroundPoster = new BackgroundPoster(this);
         asyncPoster = new AsyncPoster(this);
         //创建订阅对象中订阅方法的过滤器对象------------------------>每个EventBus对象都有自己的订阅过滤器对象
-        subscriberMethodFinder = new SubscriberMethodFinder(builder.skipMethodVerificationForClasses);
+        subscriberMethodFinder = new SubscriberMethodFinder(builder.skipMethodVerificationForClasses, logger);
         logSubscriberExceptions = builder.logSubscriberExceptions;
         logNoSubscriberMessages = builder.logNoSubscriberMessages;
         sendSubscriberExceptionEvent = builder.sendSubscriberExceptionEvent;
         sendNoSubscriberEvent = builder.sendNoSubscriberEvent;
         throwSubscriberException = builder.throwSubscriberException;
         eventInheritance = builder.eventInheritance;
+        largeFanOutThreshold = builder.largeFanOutThreshold;
+        eventInheritanceByType = builder.eventInheritanceByType != null ? new HashMap<Class<?>, Boolean>(
+                builder.eventInheritanceByType) : null;
+        threadModeByType = builder.threadModeByType != null ? new HashMap<Class<?>, ThreadMode>(
+                builder.threadModeByType) : null;
+        leafEventTypes = builder.leafEventTypes != null ? new HashSet<Class<?>>(builder.leafEventTypes) : null;
+        parallelFanOutTypes = builder.parallelFanOutTypes != null ? new HashSet<Class<?>>(
+                builder.parallelFanOutTypes) : null;
+        fanOutExecutor = parallelFanOutTypes != null ? Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "EventBus Fan-out");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+        postEventTypesCache = new ConcurrentHashMap<Class<?>, List<Class<?>>>();
+        subscribedEventTypes = new EventTypeFilter();
+        if (replayBuffers != null) {
+            for (Class<?> replayEventType : replayBuffers.keySet()) {
+                subscribedEventTypes.add(replayEventType);
+            }
+        }
         //获取线程池对象
         executorService = builder.executorService;
+        if (builder.noSubscriberAggregationMillis > 0) {
+            noSubscriberAggregator = new NoSubscriberAggregator(this, builder.noSubscriberAggregationMillis);
+            noSubscriberAggregator.start();
+        } else {
+            noSubscriberAggregator = null;
+        }
+        circuitBreakerConfig = builder.circuitBreakerConfig;
+        retryPolicies = copyRetryPolicies(builder.retryPolicies);
+        retryPoster = new RetryPoster(this);
+        deadLetters = new DeadLetterQueue(builder.deadLetterQueueSize);
+        adaptiveOffloadThresholdNanos = builder.adaptiveOffloadThresholdMillis * 1000000;
+        adaptiveOffloadLaneCapacity = builder.adaptiveOffloadLaneCapacity;
+        if (builder.slowSubscriberBudgets != null) {
+            watchdog = new SubscriberWatchdog(this, builder.slowSubscriberBudgets);
+            watchdog.start();
+        } else {
+            watchdog = null;
+        }
+        if (builder.subscriberExceptionWindowMillis > 0) {
+            subscriberExceptionAggregator = new SubscriberExceptionAggregator(this,
+                    builder.subscriberExceptionWindowMillis, builder.subscriberExceptionStackTraceSampling);
+            subscriberExceptionAggregator.start();
+        } else {
+            subscriberExceptionAggregator = null;
+        }
+    }
+
+    private static Map<Class<?>, ReplayBuffer> createReplayBuffers(Map<Class<?>, ReplayBuffer.Config> replayBufferConfigs) {
+        if (replayBufferConfigs == null) {
+            return null;
+        }
+        Map<Class<?>, ReplayBuffer> replayBuffers = new HashMap<Class<?>, ReplayBuffer>();
+        for (Map.Entry<Class<?>, ReplayBuffer.Config> entry : replayBufferConfigs.entrySet()) {
+            replayBuffers.put(entry.getKey(), new ReplayBuffer(entry.getValue()));
+        }
+        return replayBuffers;
     }
 
     //获取一个建造器对象
@@ -112,102 +230,312 @@ public class EventBus {
 
     //对订阅者的注册   使用默认的优先级别
     public void register(Object subscriber) {
-        register(subscriber, false, 0);
+        register(subscriber, false, false, 0, false);
     }
 
     //对订阅者的注册   可以设置订阅者的优先级别
     public void register(Object subscriber, int priority) {
-        register(subscriber, false, priority);
+        register(subscriber, false, false, priority, false);
     }
 
     //对订阅者的注册   是sticky类型的事件    使用默认的优先级别
     public void registerSticky(Object subscriber) {
-        register(subscriber, true, 0);
+        register(subscriber, true, false, 0, false);
     }
 
     //对订阅者的注册   是sticky类型的事件    可以自己设置其优先级别
     public void registerSticky(Object subscriber, int priority) {
-        register(subscriber, true, priority);
+        register(subscriber, true, false, priority, false);
     }
 
-    //真正进行订阅者注册的处理函数   参数一  订阅者    参数二  是否是sticky事件  参数三  优先级------------------->注册订阅者必须走的注册函数
-    private synchronized void register(Object subscriber, boolean sticky, int priority) {
-    	//根据订阅者的类来获取其上设置的所有订阅方法---------->内部使用了一些提供效率的优化机制
-        List<SubscriberMethod> subscriberMethods = subscriberMethodFinder.findSubscriberMethods(subscriber.getClass());
-        //循环所有的订阅方法
-        for (SubscriberMethod subscriberMethod : subscriberMethods) {
-        	//将订阅方法
-            subscribe(subscriber, subscriberMethod, sticky, priority);
+    /**
+     * Registers the subscriber using a weak reference. EventBus does not keep the subscriber from being garbage
+     * collected: once it is collected, it does not receive any more events (including events already queued for it)
+     * and its subscriptions are removed during one of the next registry updates. Unregistering explicitly is still
+     * the preferred way and works as usual.
+     */
+    public void registerWeak(Object subscriber) {
+        register(subscriber, false, false, 0, true);
+    }
+
+    /** Like {@link #registerWeak(Object)} using the given priority. */
+    public void registerWeak(Object subscriber, int priority) {
+        register(subscriber, false, false, priority, true);
+    }
+
+    /**
+     * Registers the subscriber and delivers the events buffered for its event types (configured with
+     * {@link EventBusBuilder#replayBuffer(Class, int, long)}) in posting order. Events posted concurrently are either
+     * part of the replayed history or delivered live afterwards, never both and never in between.
+     */
+    public void registerReplay(Object subscriber) {
+        register(subscriber, false, true, 0, false);
+    }
+
+    /** Like {@link #registerReplay(Object)} using the given priority. */
+    public void registerReplay(Object subscriber, int priority) {
+        register(subscriber, false, true, priority, false);
+    }
+
+    /** Like {@link #addTap(EventTap, int)} invoking the tap for every event. */
+    public void addTap(EventTap tap) {
+        addTap(tap, 1);
+    }
+
+    /**
+     * Adds a global tap, which is invoked directly on the posting thread for every sampleEvery-th posted event (of any
+     * type) before the event is delivered to subscribers. Taps are meant for debugging and analytics: in contrast to a
+     * subscriber to Object, they do not add the Object type to the types looked up for every post. Taps do not count
+     * as subscribers (e.g. for {@link NoSubscriberEvent}).
+     */
+    public void addTap(EventTap tap, int sampleEvery) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleEvery);
         }
+        taps.add(new TapRegistration(tap, sampleEvery));
     }
 
-    // Must be called in synchronized block
-    //
-    private void subscribe(Object subscriber, SubscriberMethod subscriberMethod, boolean sticky, int priority) {
-    	//获取订阅方法参数的类型
-        Class<?> eventType = subscriberMethod.eventType;
-        //获取在订阅方法中参数类型对应的所有订阅信息
-        CopyOnWriteArrayList<Subscription> subscriptions = subscriptionsByEventType.get(eventType);
-        //根据订阅对象  订阅方法   订阅权限 创建一个订阅信息
-        Subscription newSubscription = new Subscription(subscriber, subscriberMethod, priority);
-        //判断原先是否存储了本参数对应的订阅信息
-        if (subscriptions == null) {
-        	//没有,创建一个集合用于存储本类型对应的订阅信息
-            subscriptions = new CopyOnWriteArrayList<Subscription>();
-            //将其放置到map集合中    键值为参数类型  值为参数对应的订阅信息  
-            subscriptionsByEventType.put(eventType, subscriptions);
-        } else {
-        	//判断订阅信息集合中是否包含了此次订阅的信息
-            if (subscriptions.contains(newSubscription)) {
-            	//包含则抛出异常
-                throw new EventBusException("Subscriber " + subscriber.getClass() + " already registered to event " + eventType);
+    /** Removes the given tap; returns false if it was not added before. */
+    public boolean removeTap(EventTap tap) {
+        for (TapRegistration registration : taps) {
+            if (registration.tap == tap) {
+                return taps.remove(registration);
             }
         }
+        return false;
+    }
 
-        // Starting with EventBus 2.2 we enforced methods to be public (might change with annotations again)
-        // subscriberMethod.method.setAccessible(true);
-        //获取原先订阅信息集合中订阅信息的个数
-        int size = subscriptions.size();
-        //下面是根据设置的权限找到一个合适的插入位置
-        for (int i = 0; i <= size; i++) {
-        	//进行位置获取
-            if (i == size || newSubscription.priority > subscriptions.get(i).priority) {
-            	//将新的订阅信息插入到集合中
-                subscriptions.add(i, newSubscription);
-                break;
+    /**
+     * Registers all given subscribers at once. Either all subscribers get registered or, if one of them is invalid or
+     * already registered, none of them. The subscription list of each affected event type is rebuilt only once, which
+     * is considerably cheaper than registering the subscribers one by one.
+     *
+     * @see #createSubscriptionGroup(Object...)
+     */
+    public void registerAll(Object... subscribers) {
+        register(subscribers, false, false, 0, false);
+    }
+
+    /** Like {@link #registerAll(Object...)}, but also delivers matching sticky events like {@link #registerSticky(Object)}. */
+    public void registerAllSticky(Object... subscribers) {
+        register(subscribers, true, false, 0, false);
+    }
+
+    /**
+     * Creates a group of subscribers, which can be registered and unregistered as a whole. The group is not registered
+     * yet.
+     */
+    public SubscriptionGroup createSubscriptionGroup(Object... subscribers) {
+        return new SubscriptionGroup(this, subscribers);
+    }
+
+    /**
+     * Creates a group of competing consumers for the given event type: each event of the type (or a sub type if event
+     * inheritance applies) is delivered to exactly one member of the group. The group subscribes as soon as its first
+     * member is registered using {@link ConsumerGroup#register(Object)}.
+     */
+    public ConsumerGroup createConsumerGroup(Class<?> eventType) {
+        return new ConsumerGroup(this, eventType);
+    }
+
+    List<SubscriberMethod> findSubscriberMethods(Class<?> subscriberClass) {
+        return subscriberMethodFinder.findSubscriberMethods(subscriberClass);
+    }
+
+    //为消费者组的成员创建订阅信息:与注册时一样使用断路器和重试策略;成员在线程池中调用,不使用通道和邮箱
+    Subscription newMemberSubscription(Object subscriber, SubscriberMethod subscriberMethod) {
+        return new Subscription(subscriber, null, subscriberMethod, 0,
+                circuitBreakerConfig != null ? new CircuitBreaker(circuitBreakerConfig) : null,
+                getRetryPolicy(subscriber.getClass(), subscriberMethod.eventType), null, null, true);
+    }
+
+    //真正进行订阅者注册的处理函数   参数一  订阅者    参数二  是否是sticky事件  参数三  优先级------------------->注册订阅者必须走的注册函数
+    private void register(Object subscriber, boolean sticky, boolean replay, int priority, boolean weak) {
+        register(new Object[] { subscriber }, sticky, replay, priority, weak);
+    }
+
+    //批量注册订阅者:先创建所有的订阅信息并进行检测,再对每个事件类型只重建一次订阅信息集合
+    private synchronized void register(Object[] subscribers, boolean sticky, boolean replay, int priority,
+            boolean weak) {
+        expungeCollectedSubscribers();
+    	//按事件类型对新的订阅信息进行分组
+        Map<Class<?>, List<Subscription>> newSubscriptionsByEventType = new HashMap<Class<?>, List<Subscription>>();
+        List<Subscription> newSubscriptions = new ArrayList<Subscription>();
+        //每个订阅对象对应的新订阅信息
+        List<List<Subscription>> newSubscriptionsBySubscriber = new ArrayList<List<Subscription>>(subscribers.length);
+        Map<Object, Object> batchSubscribers = new IdentityHashMap<Object, Object>(subscribers.length);
+        for (Object subscriber : subscribers) {
+            if (batchSubscribers.put(subscriber, subscriber) != null) {
+                throw new EventBusException("Subscriber " + subscriber.getClass() + " passed twice for registration");
+            }
+        	//根据订阅者的类来获取其上设置的所有订阅方法---------->内部使用了一些提供效率的优化机制
+            //消费者组以一个固定的分发方法代替所有成员进行订阅
+            List<SubscriberMethod> subscriberMethods = subscriber instanceof ConsumerGroup ?
+                    ((ConsumerGroup) subscriber).getDispatchMethods() : findSubscriberMethods(subscriber.getClass());
+            //同一个订阅对象的所有订阅信息共用一个弱引用
+            SubscriberReference subscriberReference = weak ? new SubscriberReference(subscriber, collectedSubscribers) : null;
+            Mailbox mailbox = needsMailbox(subscriberMethods) ? new Mailbox(this) : null;
+            List<Subscription> subscribedSubscriptions = new ArrayList<Subscription>(subscriberMethods.size());
+            newSubscriptionsBySubscriber.add(subscribedSubscriptions);
+            //循环所有的订阅方法
+            for (SubscriberMethod subscriberMethod : subscriberMethods) {
+                Subscription newSubscription = new Subscription(subscriber, subscriberReference, subscriberMethod, priority,
+                        circuitBreakerConfig != null ? new CircuitBreaker(circuitBreakerConfig) : null,
+                        getRetryPolicy(subscriber.getClass(), subscriberMethod.eventType),
+                        adaptiveOffloadThresholdNanos > 0 && subscriber instanceof AsyncTolerantSubscriber
+                                && subscriberMethod.threadMode == ThreadMode.PostThread ? new AdaptiveLane(this,
+                                adaptiveOffloadThresholdNanos, adaptiveOffloadLaneCapacity) : null, mailbox, false);
+                Class<?> eventType = subscriberMethod.eventType;
+                List<Subscription> newSubscriptionsForType = newSubscriptionsByEventType.get(eventType);
+                if (newSubscriptionsForType == null) {
+                    newSubscriptionsForType = new ArrayList<Subscription>();
+                    newSubscriptionsByEventType.put(eventType, newSubscriptionsForType);
+                }
+                //判断订阅信息索引中是否包含了此次订阅的信息,包含则抛出异常;此时还没有修改任何数据
+                Set<Subscription> subscriptionIndex = subscriptionIndexByEventType.get(eventType);
+                if (subscriptionIndex != null && subscriptionIndex.contains(newSubscription)) {
+                    throw new EventBusException("Subscriber " + subscriber.getClass() + " already registered to event "
+                            + eventType);
+                }
+                newSubscriptionsForType.add(newSubscription);
+                newSubscriptions.add(newSubscription);
+                subscribedSubscriptions.add(newSubscription);
             }
         }
-        //根据订阅对象获取其对应的订阅方法集合
-        List<Class<?>> subscribedEvents = typesBySubscriber.get(subscriber);
-        //判断是否创建此订阅方法集合
-        if (subscribedEvents == null) {
-        	//创建存储订阅方法的集合
-            subscribedEvents = new ArrayList<Class<?>>();
-            //将订阅对象和创建的订阅方法集合存储到Map集合中
-            typesBySubscriber.put(subscriber, subscribedEvents);
+
+        for (Map.Entry<Class<?>, List<Subscription>> entry : newSubscriptionsByEventType.entrySet()) {
+            subscribe(entry.getKey(), entry.getValue());
+        }
+        for (int i = 0; i < subscribers.length; i++) {
+        	//将订阅对象和其订阅信息集合存储到Map集合中,注销时直接使用
+            List<Subscription> subscribedSubscriptions = newSubscriptionsBySubscriber.get(i);
+            if (weak) {
+                subscriptionsByWeakSubscriber.put(subscribedSubscriptions.get(0).subscriberReference,
+                        subscribedSubscriptions);
+            } else {
+                subscriptionsBySubscriber.put(subscribers[i], subscribedSubscriptions);
+            }
         }
-        //将订阅方法中的事件类型放置到订阅集合中
-        subscribedEvents.add(eventType);
 
         //判断是否是sticky事件类型的
         if (sticky) {
-        	//判断是否允许订阅方法中参数的继承关系
-            if (eventInheritance) {
-                // Existing sticky events of all subclasses of eventType have to be considered.
-                // Note: Iterating over all events may be inefficient with lots of sticky events,
-                // thus data structure should be changed to allow a more efficient lookup
-                // (e.g. an additional map storing sub classes of super classes: Class -> List<Class>).
-            	//
-                Set<Map.Entry<Class<?>, Object>> entries = stickyEvents.entrySet();
-                for (Map.Entry<Class<?>, Object> entry : entries) {
-                    Class<?> candidateEventType = entry.getKey();
-                    if (eventType.isAssignableFrom(candidateEventType)) {
-                        Object stickyEvent = entry.getValue();
-                        checkPostStickyEventToSubscription(newSubscription, stickyEvent);
+            for (Subscription newSubscription : newSubscriptions) {
+                postStickyEventsToSubscription(newSubscription);
+            }
+        }
+        //回放缓存的事件;此时持有锁,并发发送的事件要么已经在缓存中,要么在回放完成后才能获取到新的订阅信息
+        if (replay && replayBuffers != null) {
+            for (Subscription newSubscription : newSubscriptions) {
+                ReplayBuffer replayBuffer = replayBuffers.get(newSubscription.subscriberMethod.eventType);
+                if (replayBuffer != null) {
+                    boolean isMainThread = Looper.getMainLooper() == Looper.myLooper();
+                    for (Object event : replayBuffer.getEvents()) {
+                        postToSubscription(newSubscription, event, isMainThread);
                     }
                 }
+            }
+        }
+    }
+
+    // Must be called in synchronized block
+    //将同一个事件类型,同一优先级的多个订阅信息插入到集合中,只复制一次数组
+    private void subscribe(Class<?> eventType, List<Subscription> newSubscriptions) {
+    	//获取在订阅方法中参数类型对应的所有订阅信息
+        List<Subscription> subscriptions = subscriptionsByEventType.get(eventType);
+        int size = subscriptions != null ? subscriptions.size() : 0;
+        int priority = newSubscriptions.get(0).priority;
+        if (subscriptions == null) {
+        	//新的事件类型有了订阅信息,发送时需要查找的事件类型可能改变
+            postEventTypesCache.clear();
+            subscribedEventTypes.add(eventType);
+        }
+
+        // Starting with EventBus 2.2 we enforced methods to be public (might change with annotations again)
+        // subscriberMethod.method.setAccessible(true);
+        //下面是根据设置的权限找到一个合适的插入位置:排在所有优先级不低于它的订阅信息之后
+        int insertIndex = size > 0 ? findInsertIndex(subscriptions, priority) : 0;
+        List<Subscription> updated;
+        if (subscriptions instanceof ChunkedSubscriptionList) {
+        	//分块存储时只复制插入位置所在的块
+            updated = ((ChunkedSubscriptionList) subscriptions).insertAll(insertIndex, newSubscriptions);
+        } else {
+            List<Subscription> merged = new ArrayList<Subscription>(size + newSubscriptions.size());
+            for (int i = 0; i < insertIndex; i++) {
+                merged.add(subscriptions.get(i));
+            }
+            merged.addAll(newSubscriptions);
+            for (int i = insertIndex; i < size; i++) {
+                merged.add(subscriptions.get(i));
+            }
+            if (merged.size() >= largeFanOutThreshold) {
+                updated = ChunkedSubscriptionList.of(merged);
+            } else {
+                updated = new CopyOnWriteArrayList<Subscription>(merged);
+            }
+        }
+        // Posting threads iterate over the old snapshot, so swapping the list is safe
+        subscriptionsByEventType.put(eventType, updated);
+
+        //更新订阅信息索引
+        Set<Subscription> subscriptionIndex = subscriptionIndexByEventType.get(eventType);
+        if (subscriptionIndex == null) {
+            subscriptionIndex = new HashSet<Subscription>();
+            subscriptionIndexByEventType.put(eventType, subscriptionIndex);
+        }
+        subscriptionIndex.addAll(newSubscriptions);
+    }
+
+    //订阅信息集合按照优先级从高到低排列,使用二分查找获取第一个优先级低于给定优先级的位置
+    private static int findInsertIndex(List<Subscription> subscriptions, int priority) {
+        int low = 0;
+        int high = subscriptions.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (subscriptions.get(mid).priority >= priority) {
+                low = mid + 1;
             } else {
-                Object stickyEvent = stickyEvents.get(eventType);
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //将已存在的sticky事件发送给新的订阅信息
+    private void postStickyEventsToSubscription(Subscription newSubscription) {
+        Class<?> eventType = newSubscription.subscriberMethod.eventType;
+        //叶子类型没有子类,只需要查看本类型的sticky事件
+        if (leafEventTypes != null && leafEventTypes.contains(eventType)) {
+            Object stickyEvent = stickyEvents.getEvent(eventType);
+            checkPostStickyEventToSubscription(newSubscription, stickyEvent);
+            postKeyedStickyEventsToSubscription(newSubscription, eventType);
+            return;
+        }
+        // Existing sticky events of all subclasses of eventType have to be considered.
+        //通过类型索引只获取可以赋值给本类型的sticky事件;子类的事件只在其允许继承关系时发送
+        Set<Class<?>> candidateEventTypes = stickyEvents.getAssignableTypes(eventType);
+        if (candidateEventTypes != null) {
+            for (Class<?> candidateEventType : candidateEventTypes) {
+                if (candidateEventType == eventType || isEventInheritance(candidateEventType)) {
+                    Object stickyEvent = stickyEvents.getEvent(candidateEventType);
+                    checkPostStickyEventToSubscription(newSubscription, stickyEvent);
+                }
+            }
+        }
+        Set<Class<?>> keyedEventTypes = stickyEvents.getKeyedAssignableTypes(eventType);
+        if (keyedEventTypes != null) {
+            for (Class<?> keyedEventType : keyedEventTypes) {
+                if (keyedEventType == eventType || isEventInheritance(keyedEventType)) {
+                    postKeyedStickyEventsToSubscription(newSubscription, keyedEventType);
+                }
+            }
+        }
+    }
+
+    //将给定类型所有按键存储的sticky事件发送给新的订阅信息
+    private void postKeyedStickyEventsToSubscription(Subscription newSubscription, Class<?> eventType) {
+        Map<Object, Object> keyedEvents = stickyEvents.getKeyedEvents(eventType);
+        if (keyedEvents != null) {
+            for (Object stickyEvent : keyedEvents.values()) {
                 checkPostStickyEventToSubscription(newSubscription, stickyEvent);
             }
         }
@@ -223,50 +551,143 @@ public class EventBus {
 
     //用于检测是否注册了给定的订阅对象
     public synchronized boolean isRegistered(Object subscriber) {
-        return typesBySubscriber.containsKey(subscriber);
+        return subscriptionsBySubscriber.containsKey(subscriber) || (!subscriptionsByWeakSubscriber.isEmpty()
+                && subscriptionsByWeakSubscriber.containsKey(new SubscriberReference(subscriber, null)));
     }
 
     //取消对给定订阅对象的订阅
-    public synchronized void unregister(Object subscriber) {
-    	//根据订阅对象获取其对应的订阅类型集合
-        List<Class<?>> subscribedTypes = typesBySubscriber.get(subscriber);
-        //判断是否根据订阅对象获取到对应的订阅类型集合
-        if (subscribedTypes != null) {
-        	//循环遍历订阅对象中的所有订阅方法
-            for (Class<?> eventType : subscribedTypes) {
-            	//取消订阅对象中订阅的类型
-                unsubscribeByEventType(subscriber, eventType);
-            }
-            //最后在订阅集合中移除其对应的订阅对象
-            typesBySubscriber.remove(subscriber);
-        } else {
-        	//提示给定的订阅对象没有在订阅集合中
-            Log.w(TAG, "Subscriber to unregister was not registered before: " + subscriber.getClass());
+    public void unregister(Object subscriber) {
+        unregisterAll(subscriber);
+    }
+
+    /**
+     * Unregisters all given subscribers at once. The subscription list of each affected event type is rebuilt only
+     * once.
+     */
+    public synchronized void unregisterAll(Object... subscribers) {
+        List<Class<?>> purgedTypes = new ArrayList<Class<?>>();
+        for (Object subscriber : subscribers) {
+        	//根据订阅对象直接取出其对应的订阅信息集合
+            List<Subscription> subscriptions = subscriptionsBySubscriber.remove(subscriber);
+            if (subscriptions == null && !subscriptionsByWeakSubscriber.isEmpty()) {
+                subscriptions = subscriptionsByWeakSubscriber.remove(new SubscriberReference(subscriber, null));
+            }
+            //判断是否根据订阅对象获取到对应的订阅信息集合
+            if (subscriptions != null) {
+                deactivateSubscriptions(subscriptions, purgedTypes);
+            } else {
+            	//提示给定的订阅对象没有在订阅集合中
+                logger.log(Logger.Level.WARN, "Subscriber to unregister was not registered before: {}", subscriber.getClass());
+            }
+        }
+        deactivateCollectedSubscribers(purgedTypes);
+        //每个事件类型只重建一次订阅信息集合
+        for (Class<?> eventType : purgedTypes) {
+            purgeInactiveSubscriptions(eventType);
+        }
+        //死信持有订阅对象的强引用,注销后需要移除
+        if (!purgedTypes.isEmpty()) {
+            deadLetters.removeInactive();
         }
     }
-    
-    //取消对订阅对象中一个订阅类型的处理
-    private void unsubscribeByEventType(Object subscriber, Class<?> eventType) {
-    	//根据订阅类型获取订阅信息集合
+
+    // Must be called in synchronized block
+    //将订阅信息置为不活跃并从索引中移除,已在队列中等待触发的事件将不再投递;记录需要重建的事件类型
+    private void deactivateSubscriptions(List<Subscription> subscriptions, List<Class<?>> purgedTypes) {
+        for (Subscription subscription : subscriptions) {
+            subscription.active = false;
+            Class<?> eventType = subscription.subscriberMethod.eventType;
+            subscriptionIndexByEventType.get(eventType).remove(subscription);
+            if (!purgedTypes.contains(eventType)) {
+                purgedTypes.add(eventType);
+            }
+        }
+    }
+
+    // Must be called in synchronized block
+    //批量清除已被回收的弱引用订阅对象
+    private void expungeCollectedSubscribers() {
+        List<Class<?>> purgedTypes = new ArrayList<Class<?>>();
+        deactivateCollectedSubscribers(purgedTypes);
+        for (Class<?> eventType : purgedTypes) {
+            purgeInactiveSubscriptions(eventType);
+        }
+    }
+
+    // Must be called in synchronized block
+    //从引用队列中取出已被回收的订阅对象,将其订阅信息置为不活跃,并记录需要重建的事件类型
+    private void deactivateCollectedSubscribers(List<Class<?>> purgedTypes) {
+        Reference<?> reference;
+        while ((reference = collectedSubscribers.poll()) != null) {
+            List<Subscription> subscriptions = subscriptionsByWeakSubscriber.remove(reference);
+            if (subscriptions != null) {
+                deactivateSubscriptions(subscriptions, purgedTypes);
+            }
+        }
+    }
+
+    /**
+     * Returns the subscribers that have been registered for at least the given time. Forgotten unregister calls (e.g.
+     * in the Fragment life cycle) usually show up here. Collected weak subscribers are not reported.
+     */
+    public synchronized List<SubscriberRegistration> getSubscribersRegisteredLongerThan(long millis) {
+        long now = SystemClock.uptimeMillis();
+        List<SubscriberRegistration> registrations = new ArrayList<SubscriberRegistration>();
+        for (List<Subscription> subscriptions : subscriptionsBySubscriber.values()) {
+            addRegistrationIfOlder(registrations, subscriptions.get(0), now, millis);
+        }
+        for (List<Subscription> subscriptions : subscriptionsByWeakSubscriber.values()) {
+            addRegistrationIfOlder(registrations, subscriptions.get(0), now, millis);
+        }
+        return registrations;
+    }
+
+    private void addRegistrationIfOlder(List<SubscriberRegistration> registrations, Subscription subscription,
+            long now, long millis) {
+        long registeredMillis = now - subscription.registeredAt;
+        Object subscriber = subscription.getSubscriber();
+        if (registeredMillis >= millis && subscriber != null) {
+            registrations.add(new SubscriberRegistration(subscriber.getClass(),
+                    subscription.subscriberReference != null, registeredMillis));
+        }
+    }
+
+    // Must be called in synchronized block
+    //移除一个事件类型中所有不活跃的订阅信息:只复制一次数组,而不是每移除一条就复制一次
+    private void purgeInactiveSubscriptions(Class<?> eventType) {
         List<Subscription> subscriptions = subscriptionsByEventType.get(eventType);
-        //判断获取的集合是否存在
         if (subscriptions != null) {
-        	//获取订阅信息集合的大小
-            int size = subscriptions.size();
-            //循环遍历集合,找到订阅对象对应的订阅信息,并进行移除
-            for (int i = 0; i < size; i++) {
-            	//获取本条订阅信息
-                Subscription subscription = subscriptions.get(i);
-                //判断订阅对象是否是给定的订阅对象
-                if (subscription.subscriber == subscriber) {
-                	//设置活跃标志位为false--------------------------------------------->目的有待研究？？？？？？？？？？？？？？？？？？？？？？？？？
-                    subscription.active = false;
-                    //在集合中移除此条订阅信息
-                    subscriptions.remove(i);
-                    i--;
-                    size--;
+            List<Subscription> remaining;
+            if (subscriptions instanceof ChunkedSubscriptionList) {
+            	//分块存储时只复制包含不活跃订阅信息的块
+                ChunkedSubscriptionList chunked = ((ChunkedSubscriptionList) subscriptions).removeInactive();
+                // Switch back only well below the threshold to avoid flapping between both representations
+                if (chunked.size() < largeFanOutThreshold / 2) {
+                    remaining = new CopyOnWriteArrayList<Subscription>(chunked);
+                } else {
+                    remaining = chunked;
+                }
+            } else {
+                List<Subscription> active = new ArrayList<Subscription>(subscriptions.size());
+                for (Subscription subscription : subscriptions) {
+                    if (subscription.active) {
+                        active.add(subscription);
+                    }
+                }
+                if (active.size() < subscriptions.size()) {
+                    remaining = new CopyOnWriteArrayList<Subscription>(active);
+                } else {
+                    remaining = subscriptions;
                 }
             }
+            if (remaining.isEmpty()) {
+                subscriptionsByEventType.remove(eventType);
+                subscriptionIndexByEventType.remove(eventType);
+                postEventTypesCache.clear();
+            } else if (remaining != subscriptions) {
+                // Posting threads iterate over the old snapshot, so swapping the list is safe
+                subscriptionsByEventType.put(eventType, remaining);
+            }
         }
     }
 
@@ -292,7 +713,12 @@ public class EventBus {
             	//进行循环处理,将待发送的消息发送出去
                 while (!eventQueue.isEmpty()) {
                 	//进行单个订阅消息的处理
-                    postSingleEvent(eventQueue.remove(0), postingState);
+                    Object next = eventQueue.remove(0);
+                    if (next instanceof SubscribedPost) {
+                        postSubscribed((SubscribedPost) next, postingState);
+                    } else {
+                        postSingleEvent(next, postingState);
+                    }
                 }
             } finally {
             	//最后对状态进行恢复出来
@@ -307,27 +733,37 @@ public class EventBus {
     	//获取发送订阅的参数类型对应的类名
         Class<?> eventClass = event.getClass();
         boolean subscriptionFound = false;
-        //判断是否允许父类型的参数类型也可以响应这个消息的处理
-        if (eventInheritance) {
-        	//检测本类型对应的其父类型集合
-            List<Class<?>> eventTypes = lookupAllEventTypes(eventClass);
-            //获取集合中的元素个数
-            int countTypes = eventTypes.size();
-            //循环处理,进行消息的发送
-            for (int h = 0; h < countTypes; h++) {
-            	//首先获取一个类型-------------------------------------->注意一开始是提交参数的类型
-                Class<?> clazz = eventTypes.get(h);
-                //
-                subscriptionFound |= postSingleEventForEventType(event, postingState, clazz);
+        if (!taps.isEmpty()) {
+            invokeTaps(event);
+        }
+        //只获取需要查找的事件类型:继承关系中没有订阅信息的父类和接口会被跳过,没有订阅者时集合为空
+        //缓存命中时不需要获取EventBus的锁
+        List<Class<?>> eventTypes = postEventTypesCache.get(eventClass);
+        if (eventTypes == null) {
+            synchronized (this) {
+                eventTypes = getPostEventTypes(eventClass);
             }
-        } else {
-        	//如果进行严格的类型区分,那么只发生此类型的处理消息
-            subscriptionFound = postSingleEventForEventType(event, postingState, eventClass);
+        }
+        //获取集合中的元素个数
+        int countTypes = eventTypes.size();
+        //循环处理,进行消息的发送
+        for (int h = 0; h < countTypes; h++) {
+        	//首先获取一个类型-------------------------------------->注意一开始是提交参数的类型
+            Class<?> clazz = eventTypes.get(h);
+            //
+            subscriptionFound |= postSingleEventForEventType(event, postingState, clazz);
         }
         //判断是否找到对应的处理方法,并启动处理消息
         if (!subscriptionFound) {
+            if (noSubscriberAggregator != null) {
+            	//汇总模式下只进行计数,不输出日志也不发送事件
+                if (eventClass != NoSubscriberSummaryEvent.class && eventClass != SubscriberExceptionEvent.class) {
+                    noSubscriberAggregator.count(eventClass);
+                }
+                return;
+            }
             if (logNoSubscriberMessages) {
-                Log.d(TAG, "No subscribers registered for event " + eventClass);
+                logger.log(Logger.Level.DEBUG, "No subscribers registered for event {}", eventClass);
             }
             if (sendNoSubscriberEvent && eventClass != NoSubscriberEvent.class && eventClass != SubscriberExceptionEvent.class) {
                 post(new NoSubscriberEvent(this, event));
@@ -335,8 +771,200 @@ public class EventBus {
         }
     }
     
+    //按优先级分层:同一优先级的PostThread订阅方法并行调用,其他线程模式在各自的位置上正常投递
+    private void postInParallel(List<Subscription> subscriptions, Object event, PostingThreadState postingState) {
+        List<Subscription> tier = new ArrayList<Subscription>();
+        for (Subscription subscription : subscriptions) {
+            if (!tier.isEmpty() && (subscription.priority != tier.get(0).priority
+                    || getThreadMode(subscription, event) != ThreadMode.PostThread)) {
+                invokeInParallel(tier, event, postingState);
+                tier.clear();
+            }
+            if (getThreadMode(subscription, event) == ThreadMode.PostThread) {
+                tier.add(subscription);
+            } else {
+                postToSubscription(subscription, event, postingState.isMainThread);
+            }
+        }
+        if (!tier.isEmpty()) {
+            invokeInParallel(tier, event, postingState);
+        }
+    }
+
+    //第一个订阅信息在发送线程中调用,其余的在线程池中调用;所有调用结束后才返回
+    private void invokeInParallel(List<Subscription> tier, final Object event, PostingThreadState postingState) {
+        if (postingState.fanOutWorker) {
+        	//在并行调用的线程中再次并行发送时依次调用,避免线程个数不断增长
+            postingState.parallel = true;
+            try {
+                for (Subscription subscription : tier) {
+                    postToSubscription(subscription, event, postingState.isMainThread);
+                }
+            } finally {
+                postingState.parallel = false;
+            }
+            return;
+        }
+        int size = tier.size();
+        final CountDownLatch done = new CountDownLatch(size - 1);
+        //第一个失败:RuntimeException或Error都需要在发送线程中重新抛出,否则会丢失在线程池中
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final boolean isMainThread = postingState.isMainThread;
+        for (int i = 1; i < size; i++) {
+            final Subscription subscription = tier.get(i);
+            fanOutExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    currentPostingThreadState.get().fanOutWorker = true;
+                    try {
+                        postToSubscription(subscription, event, isMainThread);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        postingState.event = event;
+        postingState.subscription = tier.get(0);
+        postingState.parallel = true;
+        try {
+            postToSubscription(tier.get(0), event, isMainThread);
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            postingState.event = null;
+            postingState.subscription = null;
+            postingState.parallel = false;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable firstFailure = failure.get();
+        if (firstFailure instanceof RuntimeException) {
+            throw (RuntimeException) firstFailure;
+        } else if (firstFailure instanceof Error) {
+            throw (Error) firstFailure;
+        } else if (firstFailure != null) {
+            throw new EventBusException("Parallel delivery failed", firstFailure);
+        }
+    }
+
+    //由汇总对象定期调用:输出一条日志,并在线程池中发送汇总事件,不占用共享的定时线程
+    void reportNoSubscriberSummary(Map<Class<?>, Long> countsByEventType, long intervalMillis) {
+        if (logNoSubscriberMessages && logger.isLoggable(Logger.Level.DEBUG)) {
+            long total = 0;
+            for (Long count : countsByEventType.values()) {
+                total += count;
+            }
+            logger.log(Logger.Level.DEBUG, "No subscribers registered for {} events in the last {}ms: {}",
+                    new Object[]{total, intervalMillis, countsByEventType}, null);
+        }
+        if (sendNoSubscriberEvent) {
+            final NoSubscriberSummaryEvent summaryEvent = new NoSubscriberSummaryEvent(this, countsByEventType,
+                    intervalMillis);
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    post(summaryEvent);
+                }
+            });
+        }
+    }
+
+    //由异常汇总对象定期调用:输出一条日志,并在线程池中发送汇总事件
+    void reportSubscriberExceptionSummary(List<SubscriberExceptionSummaryEvent.Entry> entries, long windowMillis) {
+        if (logSubscriberExceptions) {
+            logger.log(Logger.Level.ERROR, "Repeated subscriber exceptions in the last {}ms: {}", windowMillis,
+                    entries);
+        }
+        if (sendSubscriberExceptionEvent) {
+            final SubscriberExceptionSummaryEvent summaryEvent = new SubscriberExceptionSummaryEvent(this, entries,
+                    windowMillis);
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    post(summaryEvent);
+                }
+            });
+        }
+    }
+
+    //调用所有的全局监听对象,监听对象的异常不影响事件的发送
+    private void invokeTaps(Object event) {
+        for (TapRegistration registration : taps) {
+            if (registration.sample()) {
+                try {
+                    registration.tap.onEvent(event);
+                } catch (RuntimeException e) {
+                    logger.log(Logger.Level.ERROR, "Event tap {} threw an exception", registration.tap.getClass(), e);
+                }
+            }
+        }
+    }
+
+    // Must be called in synchronized block
+    //获取发送事件时需要查找订阅信息的事件类型,结果进行缓存
+    private List<Class<?>> getPostEventTypes(Class<?> eventClass) {
+        List<Class<?>> eventTypes = postEventTypesCache.get(eventClass);
+        if (eventTypes == null) {
+            List<Class<?>> candidates;
+            if (isEventInheritance(eventClass)) {
+                candidates = lookupAllEventTypes(eventClass);
+            } else {
+            	//如果进行严格的类型区分,那么只发生此类型的处理消息
+                candidates = new ArrayList<Class<?>>(1);
+                candidates.add(eventClass);
+            }
+            eventTypes = new ArrayList<Class<?>>(1);
+            for (Class<?> candidate : candidates) {
+                if (subscriptionsByEventType.containsKey(candidate)
+                        || (replayBuffers != null && replayBuffers.containsKey(candidate))) {
+                    eventTypes.add(candidate);
+                }
+            }
+            postEventTypesCache.put(eventClass, eventTypes);
+        }
+        return eventTypes;
+    }
+
+    //判断给定类型的事件是否发送给其父类和接口的订阅者:叶子类型不发送,其次使用按类型的配置,最后使用全局配置
+    private boolean isEventInheritance(Class<?> eventClass) {
+        if (leafEventTypes != null && leafEventTypes.contains(eventClass)) {
+            return false;
+        }
+        if (eventInheritanceByType != null) {
+            Boolean configured = eventInheritanceByType.get(eventClass);
+            if (configured != null) {
+                return configured;
+            }
+        }
+        return eventInheritance;
+    }
+
+    //获取订阅方法对给定事件使用的线程模式,按事件类型配置的线程模式优先
+    private ThreadMode getThreadMode(Subscription subscription, Object event) {
+        if (threadModeByType != null) {
+            ThreadMode forced = threadModeByType.get(event.getClass());
+            if (forced != null) {
+                return forced;
+            }
+        }
+        return subscription.subscriberMethod.threadMode;
+    }
+
     //在类型集合中用于检测给定类型的父类型
-    private List<Class<?>> lookupAllEventTypes(Class<?> eventClass) {
+    static List<Class<?>> lookupAllEventTypes(Class<?> eventClass) {
         synchronized (eventTypesCache) {
         	//根据给定的参数类型的类名获取
             List<Class<?>> eventTypes = eventTypesCache.get(eventClass);
@@ -379,13 +1007,30 @@ public class EventBus {
     
     //
     private boolean postSingleEventForEventType(Object event, PostingThreadState postingState, Class<?> eventClass) {
-        CopyOnWriteArrayList<Subscription> subscriptions;
+        List<Subscription> subscriptions;
         synchronized (this) {
         	//首先根据类型获取订阅信息集合
             subscriptions = subscriptionsByEventType.get(eventClass);
+            //与获取订阅信息在同一个同步块中写入回放缓存,保证回放注册时不会遗漏或重复事件;写入本身不需要加锁
+            if (replayBuffers != null) {
+                ReplayBuffer replayBuffer = replayBuffers.get(eventClass);
+                if (replayBuffer != null) {
+                    replayBuffer.add(event);
+                }
+            }
         }
+        return postToSubscriptions(event, postingState, eventClass, subscriptions);
+    }
+
+    //将事件投递给给定的订阅信息集合,集合为空时返回false
+    private boolean postToSubscriptions(Object event, PostingThreadState postingState, Class<?> eventClass,
+            List<Subscription> subscriptions) {
         //判断是否有订阅信息集合存在
         if (subscriptions != null && !subscriptions.isEmpty()) {
+            if (parallelFanOutTypes != null && parallelFanOutTypes.contains(eventClass)) {
+                postInParallel(subscriptions, event, postingState);
+                return true;
+            }
         	//进行循环处理,获取当个订阅对象,并进行消息的响应处理
             for (Subscription subscription : subscriptions) {
                 postingState.event = event;
@@ -412,11 +1057,16 @@ public class EventBus {
     
     //
     private void postToSubscription(Subscription subscription, Object event, boolean isMainThread) {
-        switch (subscription.subscriberMethod.threadMode) {
+        ThreadMode threadMode = getThreadMode(subscription, event);
+        switch (threadMode) {
             //需要当前线程进行消息处理
             case PostThread:
             	//当前正处于发送订阅的线程中,可以直接出发订阅方法
-                invokeSubscriber(subscription, event);
+                if (subscription.adaptiveLane == null) {
+                    invokeSubscriber(subscription, event);
+                } else if (!subscription.adaptiveLane.enqueueIfOffloaded(subscription, event)) {
+                    subscription.adaptiveLane.invoke(subscription, event);
+                }
                 break;
             //需要主线程进行消息处理
             case MainThread:
@@ -445,8 +1095,12 @@ public class EventBus {
             	//
                 asyncPoster.enqueue(subscription, event);
                 break;
+            //订阅对象的邮箱,按顺序逐个处理
+            case Mailbox:
+                subscription.mailbox.enqueue(subscription, event);
+                break;
             default:
-                throw new IllegalStateException("Unknown thread mode: " + subscription.subscriberMethod.threadMode);
+                throw new IllegalStateException("Unknown thread mode: " + threadMode);
         }
     }
 
@@ -461,39 +1115,197 @@ public class EventBus {
         PostingThreadState postingState = currentPostingThreadState.get();
         if (!postingState.isPosting) {
             throw new EventBusException("This method may only be called from inside event handling methods on the posting thread");
+        } else if (postingState.parallel) {
+            throw new EventBusException("Event delivery can not be canceled for event types with parallel fan-out");
         } else if (event == null) {
             throw new EventBusException("Event may not be null");
         } else if (postingState.event != event) {
             throw new EventBusException("Only the currently handled event may be aborted");
-        } else if (postingState.subscription.subscriberMethod.threadMode != ThreadMode.PostThread) {
+        } else if (getThreadMode(postingState.subscription, event) != ThreadMode.PostThread) {
             throw new EventBusException(" event handlers may only abort the incoming event");
         }
 
         postingState.canceled = true;
     }
 
+    /**
+     * Creates the event using the supplier and posts it, but only if there is at least one subscriber receiving events
+     * of the given type (including subscribers of super types if event inheritance applies). Use this for events which
+     * are expensive to create and usually not subscribed to. The supplier may return an instance of a subtype, but the
+     * event is delivered to the subscribers of the given type as registered before the supplier was called: a
+     * subscriber unregistering meanwhile does not make the event unsubscribed.
+     *
+     * @return true if the event was created and posted.
+     */
+    public <T> boolean postIfSubscribed(Class<T> eventType, EventSupplier<? extends T> supplier) {
+        //先不加锁地检测:继承关系中的类型都从未有过订阅信息时直接返回
+        if (!mayHaveSubscribers(eventType)) {
+            return false;
+        }
+        //在同一个同步块中获取订阅信息,之后只投递给这些订阅信息;只有回放缓存的类型不算作有订阅者
+        List<Class<?>> eventTypes = new ArrayList<Class<?>>(1);
+        List<List<Subscription>> subscriptionLists = new ArrayList<List<Subscription>>(1);
+        synchronized (this) {
+            for (Class<?> clazz : getPostEventTypes(eventType)) {
+                List<Subscription> subscriptions = subscriptionsByEventType.get(clazz);
+                if (subscriptions != null && !subscriptions.isEmpty()) {
+                    eventTypes.add(clazz);
+                    subscriptionLists.add(subscriptions);
+                }
+            }
+        }
+        if (eventTypes.isEmpty()) {
+            return false;
+        }
+        T event = supplier.get();
+        if (event == null) {
+            throw new EventBusException("Supplier returned null for " + eventType);
+        } else if (!eventType.isInstance(event)) {
+            throw new EventBusException("Supplier returned " + event.getClass() + ", which is not a " + eventType);
+        }
+        //经过发送队列投递,正在发送其他事件时保持事件的顺序
+        post(new SubscribedPost(event, eventTypes, subscriptionLists));
+        return true;
+    }
+
+    //投递postIfSubscribed创建的事件:使用创建事件之前获取的订阅信息,不再重新查找
+    private void postSubscribed(SubscribedPost subscribedPost, PostingThreadState postingState) {
+        Object event = subscribedPost.event;
+        if (!taps.isEmpty()) {
+            invokeTaps(event);
+        }
+        if (replayBuffers != null) {
+            synchronized (this) {
+                for (Class<?> clazz : subscribedPost.eventTypes) {
+                    ReplayBuffer replayBuffer = replayBuffers.get(clazz);
+                    if (replayBuffer != null) {
+                        replayBuffer.add(event);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < subscribedPost.eventTypes.size(); i++) {
+            postToSubscriptions(event, postingState, subscribedPost.eventTypes.get(i),
+                    subscribedPost.subscriptionLists.get(i));
+        }
+    }
+
+    //使用布隆过滤器判断事件类型是否可能有订阅者,返回false时一定没有订阅者
+    private boolean mayHaveSubscribers(Class<?> eventClass) {
+        if (!isEventInheritance(eventClass)) {
+            return subscribedEventTypes.mightContain(eventClass);
+        }
+        //不使用lookupAllEventTypes:它对进程内全局的缓存加锁;直接遍历父类和接口
+        for (Class<?> clazz = eventClass; clazz != null; clazz = clazz.getSuperclass()) {
+            if (subscribedEventTypes.mightContain(clazz) || mayHaveSubscribers(clazz.getInterfaces())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean mayHaveSubscribers(Class<?>[] interfaces) {
+        for (Class<?> interfaceClass : interfaces) {
+            if (subscribedEventTypes.mightContain(interfaceClass)
+                    || mayHaveSubscribers(interfaceClass.getInterfaces())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Posts the given event to the event bus and holds on to the event (because it is sticky). The most recent sticky
      * event of an event's type is kept in memory for future access. This can be {@link #registerSticky(Object)} or
-     * {@link #getStickyEvent(Class)}.
+     * {@link #getStickyEvent(Class)}. For types configured with {@link EventBusBuilder#distinctStickyEvents(Class)},
+     * an event equal to the current sticky event is ignored.
      */
     public void postSticky(Object event) {
-        synchronized (stickyEvents) {
-            stickyEvents.put(event.getClass(), event);
+        //配置为只在改变时发送的事件类型,与当前sticky事件相等时直接忽略
+        if (stickyEvents.putIfChanged(event)) {
+            // Should be posted after it is putted, in case the subscriber wants to remove immediately
+            post(event);
+        }
+    }
+
+    /**
+     * Posts the given event and holds on to it as the most recent sticky event for the given key. Unlike
+     * {@link #postSticky(Object)}, events of the same type with different keys are kept side by side, e.g. the latest
+     * presence per user id. Sticky subscribers receive all keyed sticky events on registration. The number of keys per
+     * type is bounded, see {@link EventBusBuilder#maxKeyedStickyEventsPerType(int)}.
+     */
+    public void postSticky(Object key, Object event) {
+        if (key == null) {
+            throw new EventBusException("Key must not be null");
         }
-        // Should be posted after it is putted, in case the subscriber wants to remove immediately
+        stickyEvents.putKeyed(key, event);
         post(event);
     }
 
+    /**
+     * Atomically replaces the sticky event of the update's type with the update, if the current sticky event is the
+     * expected one (compared by identity). Pass null as expected event if there must not be a sticky event of this
+     * type yet. If successful, the update is posted like in {@link #postSticky(Object)}. This allows concurrent
+     * producers to update state without a global lock, e.g. in a loop reading the current event first.
+     *
+     * @return true if the update was stored and posted, false if the current sticky event was not the expected one.
+     */
+    public boolean compareAndSetSticky(Object expected, Object update) {
+        if (stickyEvents.compareAndSet(expected, update)) {
+            post(update);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     /**
      * Gets the most recent sticky event for the given type.
      *
      * @see #postSticky(Object)
      */
     public <T> T getStickyEvent(Class<T> eventType) {
-        synchronized (stickyEvents) {
-            return eventType.cast(stickyEvents.get(eventType));
-        }
+        return eventType.cast(stickyEvents.getEvent(eventType));
+    }
+
+    /**
+     * Gets the most recent sticky event for the given type and key.
+     *
+     * @see #postSticky(Object, Object)
+     */
+    public <T> T getStickyEvent(Class<T> eventType, Object key) {
+        return eventType.cast(stickyEvents.getKeyed(eventType, key));
+    }
+
+    /**
+     * Gets a snapshot of the most recent keyed sticky events of the given type, mapped by their keys.
+     *
+     * @see #postSticky(Object, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<Object, T> getStickyEvents(Class<T> eventType) {
+        Map<Object, Object> keyedEvents = stickyEvents.getKeyedEvents(eventType);
+        return keyedEvents != null ? (Map<Object, T>) keyedEvents : new HashMap<Object, T>();
+    }
+
+    /**
+     * Gets the most recent sticky event for the given type together with its version, or null if there is none.
+     *
+     * @see #getStickyEventVersion(Class)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> VersionedEvent<T> getStickyEventWithVersion(Class<T> eventType) {
+        // Sticky events are stored by their exact class, so the event is always of the requested type
+        return (VersionedEvent<T>) stickyEvents.get(eventType);
+    }
+
+    /**
+     * Gets the version of the most recent sticky event for the given type, or 0 if there is none. This is a cheap way
+     * to check if the sticky event changed since the last time.
+     */
+    public long getStickyEventVersion(Class<?> eventType) {
+        VersionedEvent<Object> entry = stickyEvents.get(eventType);
+        return entry != null ? entry.version : 0;
     }
 
     /**
@@ -502,9 +1314,16 @@ public class EventBus {
      * @see #postSticky(Object)
      */
     public <T> T removeStickyEvent(Class<T> eventType) {
-        synchronized (stickyEvents) {
-            return eventType.cast(stickyEvents.remove(eventType));
-        }
+        return eventType.cast(stickyEvents.remove(eventType));
+    }
+
+    /**
+     * Removes and gets the sticky event for the given event type and key.
+     *
+     * @see #postSticky(Object, Object)
+     */
+    public <T> T removeStickyEvent(Class<T> eventType, Object key) {
+        return eventType.cast(stickyEvents.removeKeyed(eventType, key));
     }
 
     /**
@@ -513,39 +1332,131 @@ public class EventBus {
      * @return true if the events matched and the sticky event was removed.
      */
     public boolean removeStickyEvent(Object event) {
-        synchronized (stickyEvents) {
-            Class<?> eventType = event.getClass();
-            Object existingEvent = stickyEvents.get(eventType);
-            if (event.equals(existingEvent)) {
-                stickyEvents.remove(eventType);
-                return true;
-            } else {
-                return false;
-            }
-        }
+        return stickyEvents.remove(event);
     }
 
     /**
      * Removes all sticky events.
      */
     public void removeAllStickyEvents() {
-        synchronized (stickyEvents) {
-            stickyEvents.clear();
+        stickyEvents.clear();
+    }
+
+    /**
+     * Gets the events currently buffered for replay of the given type, oldest first.
+     *
+     * @see #registerReplay(Object)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getReplayEvents(Class<T> eventType) {
+        ReplayBuffer replayBuffer = replayBuffers != null ? replayBuffers.get(eventType) : null;
+        return replayBuffer != null ? (List<T>) replayBuffer.getEvents() : new ArrayList<T>();
+    }
+
+    /**
+     * Gets the number of sticky posts suppressed because the event was equal to the current sticky event.
+     *
+     * @see EventBusBuilder#distinctStickyEvents(Class)
+     */
+    public long getSuppressedStickyPostCount() {
+        return stickyEvents.getSuppressedCount();
+    }
+
+    /**
+     * Blocks until all changes of persistent sticky events made before are written to the sticky event file. Changes
+     * are written in the background; call this if another process must see them immediately.
+     *
+     * @see EventBusBuilder#persistStickyEvents(Class, StickyEventSerializer)
+     */
+    public void flushStickyEvents() {
+        stickyEvents.flush();
+    }
+
+    /**
+     * Writes all changes of persistent sticky events and closes the sticky event file. Later changes are kept in memory
+     * only. Call this before a file is opened by another EventBus, e.g. in tests.
+     */
+    public void closeStickyEventFile() {
+        stickyEvents.close();
+    }
+
+    /**
+     * Returns the events, which could not be delivered within the attempts of their {@link RetryPolicy} or were
+     * rejected by a full adaptive offload lane (see {@link EventBusBuilder#adaptiveOffload(long, int)}), oldest first.
+     * Dead letters are removed when their subscriber is unregistered.
+     */
+    public List<DeadLetter> getDeadLetters() {
+        return deadLetters.getAll();
+    }
+
+    /**
+     * Removes all dead letters and delivers them again to their subscriber methods, which get the full number of
+     * attempts of their retry policy. Delivery is asynchronous; subscriber methods using PostThread are invoked in a
+     * background thread. Dead letters of unregistered subscribers are dropped.
+     *
+     * @return the number of dead letters delivered again
+     */
+    public int redriveDeadLetters() {
+        int count = 0;
+        for (DeadLetter deadLetter : deadLetters.drain()) {
+            if (deadLetter.subscription.active) {
+                enqueueRetry(PendingPost.obtainPendingPost(deadLetter.subscription, deadLetter.event));
+                count++;
+            }
         }
+        return count;
+    }
+
+    /** Removes all dead letters without delivering them. */
+    public void clearDeadLetters() {
+        deadLetters.drain();
+    }
+
+    /** Returns the number of dead letters dropped because the dead letter queue was full. */
+    public long getDroppedDeadLetterCount() {
+        return deadLetters.getDroppedCount();
+    }
+
+    /**
+     * Gets the number of sticky events evicted because the limits configured with
+     * {@link EventBusBuilder#maxStickyEvents(int)} or {@link EventBusBuilder#maxStickyEventsSize(long, EventSizeEstimator)}
+     * were exceeded.
+     */
+    public long getStickyEvictionCount() {
+        return stickyEvents.getEvictionCount();
+    }
+
+    /**
+     * Gets the number of sticky events removed because their time to live configured with
+     * {@link EventBusBuilder#stickyEventTimeToLive(Class, long)} elapsed.
+     */
+    public long getStickyExpirationCount() {
+        return stickyEvents.getExpirationCount();
     }
 
     public boolean hasSubscriberForEvent(Class<?> eventClass) {
         List<Class<?>> eventTypes = lookupAllEventTypes(eventClass);
         if (eventTypes != null) {
             int countTypes = eventTypes.size();
+            //先不加锁地排除从未有过订阅信息的类型,再在一个同步块中检测剩余的类型
+            List<Class<?>> candidates = null;
             for (int h = 0; h < countTypes; h++) {
                 Class<?> clazz = eventTypes.get(h);
-                CopyOnWriteArrayList<Subscription> subscriptions;
-                synchronized (this) {
-                    subscriptions = subscriptionsByEventType.get(clazz);
+                if (subscribedEventTypes.mightContain(clazz)) {
+                    if (candidates == null) {
+                        candidates = new ArrayList<Class<?>>(countTypes - h);
+                    }
+                    candidates.add(clazz);
                 }
-                if (subscriptions != null && !subscriptions.isEmpty()) {
-                    return true;
+            }
+            if (candidates != null) {
+                synchronized (this) {
+                    for (Class<?> clazz : candidates) {
+                        List<Subscription> subscriptions = subscriptionsByEventType.get(clazz);
+                        if (subscriptions != null && !subscriptions.isEmpty()) {
+                            return true;
+                        }
+                    }
                 }
             }
         }
@@ -561,46 +1472,252 @@ public class EventBus {
     void invokeSubscriber(PendingPost pendingPost) {
         Object event = pendingPost.event;
         Subscription subscription = pendingPost.subscription;
+        int failedAttempts = pendingPost.failedAttempts;
         PendingPost.releasePendingPost(pendingPost);
         if (subscription.active) {
-            invokeSubscriber(subscription, event);
+            invokeSubscriber(subscription, event, failedAttempts);
         }
     }
 
     //通过反射的方法,将订阅对象的订阅方法运行起来,即实现消息的响应处理
     void invokeSubscriber(Subscription subscription, Object event) {
+        invokeSubscriber(subscription, event, 0);
+    }
+
+    private void invokeSubscriber(Subscription subscription, Object event, int failedAttempts) {
+        Object subscriber = subscription.getSubscriber();
+        if (subscriber == null) {
+            // Weakly registered subscriber was garbage collected
+            return;
+        }
+        CircuitBreaker circuitBreaker = subscription.circuitBreaker;
+        //本次调用是否是半开状态的探测,只有探测的结果可以关闭或重新断开断路器
+        boolean probe = false;
+        if (circuitBreaker != null) {
+        	//断路器断开时直接跳过,冷却时间过后只让一个事件进行探测
+            int permission = circuitBreaker.acquire();
+            if (permission == CircuitBreaker.DENIED) {
+                if (failedAttempts > 0) {
+                	//重试不能被跳过:在冷却时间结束后重新安排,不计入失败次数
+                    long delayMillis = Math.max(circuitBreaker.getRemainingCooldownMillis(),
+                            subscription.retryPolicy.getBackoffMillis(failedAttempts));
+                    retryPoster.enqueue(subscription, event, failedAttempts, delayMillis);
+                }
+                return;
+            } else if (permission == CircuitBreaker.PROBE) {
+                probe = true;
+                postCircuitBreakerEvent(subscription, subscriber, CircuitBreakerEvent.State.OPEN);
+            }
+        }
         try {
         	//获取方法,利用反射进行触发
-            subscription.subscriberMethod.method.invoke(subscription.subscriber, event);
+            if (watchdog == null) {
+                subscription.subscriberMethod.method.invoke(subscriber, event);
+            } else {
+                invokeWatched(subscription, subscriber, event);
+            }
+            if (circuitBreaker != null && circuitBreaker.onSuccess(probe)) {
+                postCircuitBreakerEvent(subscription, subscriber, CircuitBreakerEvent.State.HALF_OPEN);
+            }
         } catch (InvocationTargetException e) {
-            handleSubscriberException(subscription, event, e.getCause());
+            if (circuitBreaker != null) {
+                CircuitBreakerEvent.State previousState = circuitBreaker.onFailure(probe);
+                if (previousState != null) {
+                    postCircuitBreakerEvent(subscription, subscriber, previousState);
+                }
+            }
+            Throwable cause = e.getCause();
+            if (subscription.retryPolicy != null && !throwSubscriberException
+                    && retryDelivery(subscription, event, failedAttempts + 1, cause)) {
+                return;
+            }
+            handleSubscriberException(subscription, subscriber, event, cause);
         } catch (IllegalAccessException e) {
             throw new IllegalStateException("Unexpected exception", e);
         }
     }
 
-    private void handleSubscriberException(Subscription subscription, Object event, Throwable cause) {
+    //记录调用的开始和结束时间,由监控对象检查是否超过了线程模式的时间预算
+    private void invokeWatched(Subscription subscription, Object subscriber, Object event)
+            throws InvocationTargetException, IllegalAccessException {
+        SubscriberWatchdog.Invocation invocation = watchdog.begin(subscription, event.getClass(),
+                getThreadMode(subscription, event));
+        try {
+            subscription.subscriberMethod.method.invoke(subscriber, event);
+        } finally {
+            if (invocation != null) {
+                watchdog.end(invocation);
+            }
+        }
+    }
+
+    //由监控对象调用:输出日志,并在线程池中发送事件,不阻塞慢的线程和监控线程
+    void reportSlowSubscriber(final SlowSubscriberEvent slowSubscriberEvent) {
+        logger.log(Logger.Level.WARN, "Subscriber method {} exceeded its budget: {}ms",
+                slowSubscriberEvent.subscriberMethod, slowSubscriberEvent.elapsedMillis);
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                post(slowSubscriberEvent);
+            }
+        });
+    }
+
+    //还有剩余的重试次数时延迟重新投递并返回true;否则将事件放入死信队列并返回false,由调用者按异常处理
+    private boolean retryDelivery(Subscription subscription, Object event, int failedAttempts, Throwable cause) {
+        RetryPolicy retryPolicy = subscription.retryPolicy;
+        if (failedAttempts < retryPolicy.maxAttempts) {
+            logger.log(Logger.Level.DEBUG, "Retrying delivery of {} to {}", event.getClass(),
+                    subscription.subscriberMethod.method, cause);
+            retryPoster.enqueue(subscription, event, failedAttempts, retryPolicy.getBackoffMillis(failedAttempts));
+            return true;
+        }
+        addDeadLetter(subscription, event, cause, failedAttempts);
+        return false;
+    }
+
+    void addDeadLetter(Subscription subscription, Object event, Throwable cause, int failedAttempts) {
+        deadLetters.add(new DeadLetter(subscription, event, cause, failedAttempts));
+    }
+
+    //自适应通道已满:事件放入死信队列以便重新投递,并输出警告和发送异常事件,使丢失的投递可以被发现
+    void onAdaptiveLaneFull(Subscription subscription, Object event) {
+        EventBusException cause = new EventBusException("Adaptive lane is full for "
+                + subscription.subscriberMethod.method);
+        addDeadLetter(subscription, event, cause, 0);
+        logger.log(Logger.Level.WARN, "Adaptive lane of {} is full, added event {} to dead letters",
+                subscription.subscriberMethod.method, event.getClass());
+        Object subscriber = subscription.getSubscriber();
+        if (sendSubscriberExceptionEvent && subscriber != null && !(event instanceof SubscriberExceptionEvent)) {
+            post(new SubscriberExceptionEvent(this, cause, event, subscriber));
+        }
+    }
+
+    //重试不在发送事件的线程中进行:主线程和异步模式使用对应的投递对象,其他模式使用后台线程;
+    //消费者组的成员没有邮箱,也不应在主线程中调用,总是使用后台线程
+    void enqueueRetry(PendingPost pendingPost) {
+        if (pendingPost.subscription.groupMember) {
+            backgroundPoster.enqueue(pendingPost);
+            return;
+        }
+        switch (getThreadMode(pendingPost.subscription, pendingPost.event)) {
+            case MainThread:
+                mainThreadPoster.enqueue(pendingPost);
+                break;
+            case Async:
+                asyncPoster.enqueue(pendingPost);
+                break;
+            case Mailbox:
+                pendingPost.subscription.mailbox.enqueue(pendingPost);
+                break;
+            default:
+                backgroundPoster.enqueue(pendingPost);
+                break;
+        }
+    }
+
+    //有订阅方法使用Mailbox模式,或者订阅方法可以接收被强制使用Mailbox模式的事件类型时,订阅对象需要邮箱
+    private boolean needsMailbox(List<SubscriberMethod> subscriberMethods) {
+        for (SubscriberMethod subscriberMethod : subscriberMethods) {
+            if (subscriberMethod.threadMode == ThreadMode.Mailbox) {
+                return true;
+            }
+            if (threadModeByType != null) {
+                for (Map.Entry<Class<?>, ThreadMode> entry : threadModeByType.entrySet()) {
+                    //强制的线程模式按事件的类匹配,订阅父类型的方法也会收到这些事件
+                    if (entry.getValue() == ThreadMode.Mailbox
+                            && subscriberMethod.eventType.isAssignableFrom(entry.getKey())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private RetryPolicy getRetryPolicy(Class<?> subscriberClass, Class<?> eventType) {
+        if (retryPolicies == null) {
+            return null;
+        }
+        for (Class<?> clazz = subscriberClass; clazz != null; clazz = clazz.getSuperclass()) {
+            Map<Class<?>, RetryPolicy> policiesByEventType = retryPolicies.get(clazz);
+            if (policiesByEventType != null && policiesByEventType.containsKey(eventType)) {
+                return policiesByEventType.get(eventType);
+            }
+        }
+        return null;
+    }
+
+    private static Map<Class<?>, Map<Class<?>, RetryPolicy>> copyRetryPolicies(
+            Map<Class<?>, Map<Class<?>, RetryPolicy>> retryPolicies) {
+        if (retryPolicies == null) {
+            return null;
+        }
+        Map<Class<?>, Map<Class<?>, RetryPolicy>> copy = new HashMap<Class<?>, Map<Class<?>, RetryPolicy>>();
+        for (Map.Entry<Class<?>, Map<Class<?>, RetryPolicy>> entry : retryPolicies.entrySet()) {
+            copy.put(entry.getKey(), new HashMap<Class<?>, RetryPolicy>(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private void postCircuitBreakerEvent(Subscription subscription, Object subscriber,
+            CircuitBreakerEvent.State previousState) {
+        CircuitBreaker circuitBreaker = subscription.circuitBreaker;
+        post(new CircuitBreakerEvent(this, subscriber, subscription.subscriberMethod.method, previousState,
+                circuitBreaker.getState(), circuitBreaker.getSkippedCount()));
+    }
+
+    private void handleSubscriberException(Subscription subscription, Object subscriber, Object event,
+            Throwable cause) {
+        if (subscriberExceptionAggregator != null && !(throwSubscriberException
+                && !(event instanceof SubscriberExceptionEvent))) {
+            long occurrence = subscriberExceptionAggregator.count(subscription, cause);
+            if (occurrence > 1) {
+            	//本周期内重复的异常只进行计数,不发送异常事件;只输出抽样的异常的堆栈
+                if (logSubscriberExceptions && subscriberExceptionAggregator.isSampled(occurrence)) {
+                    logger.log(Logger.Level.ERROR, "Repeated exception #{} in subscribing class {}", occurrence,
+                            subscriber.getClass(), cause);
+                }
+                return;
+            }
+        }
         if (event instanceof SubscriberExceptionEvent) {
             if (logSubscriberExceptions) {
                 // Don't send another SubscriberExceptionEvent to avoid infinite event recursion, just log
-                Log.e(TAG, "SubscriberExceptionEvent subscriber " + subscription.subscriber.getClass() + " threw an exception", cause);
+                logger.log(Logger.Level.ERROR, "SubscriberExceptionEvent subscriber {} threw an exception", subscriber.getClass(),
+                        cause);
                 SubscriberExceptionEvent exEvent = (SubscriberExceptionEvent) event;
-                Log.e(TAG, "Initial event " + exEvent.causingEvent + " caused exception in " + exEvent.causingSubscriber, exEvent.throwable);
+                logger.log(Logger.Level.ERROR, "Initial event {} caused exception in {}", exEvent.causingEvent,
+                        exEvent.causingSubscriber, exEvent.throwable);
             }
         } else {
             if (throwSubscriberException) {
                 throw new EventBusException("Invoking subscriber failed", cause);
             }
             if (logSubscriberExceptions) {
-                Log.e(TAG, "Could not dispatch event: " + event.getClass() + " to subscribing class " + subscription.subscriber.getClass(), cause);
+                logger.log(Logger.Level.ERROR, "Could not dispatch event: {} to subscribing class {}", event.getClass(),
+                        subscriber.getClass(), cause);
             }
             if (sendSubscriberExceptionEvent) {
-                SubscriberExceptionEvent exEvent = new SubscriberExceptionEvent(this, cause, event, subscription.subscriber);
+                SubscriberExceptionEvent exEvent = new SubscriberExceptionEvent(this, cause, event, subscriber);
                 post(exEvent);
             }
         }
     }
 
+    //postIfSubscribed创建的事件与创建之前获取的订阅信息,在发送队列中代替事件本身
+    final static class SubscribedPost {
+        final Object event;
+        final List<Class<?>> eventTypes;
+        final List<List<Subscription>> subscriptionLists;
+
+        SubscribedPost(Object event, List<Class<?>> eventTypes, List<List<Subscription>> subscriptionLists) {
+            this.event = event;
+            this.eventTypes = eventTypes;
+            this.subscriptionLists = subscriptionLists;
+        }
+    }
+
     /** For ThreadLocal, much faster to set (and get multiple values). */
     final static class PostingThreadState {
     	
@@ -616,6 +1733,15 @@ public class EventBus {
         Object event;
         //
         boolean canceled;
+        //当前的订阅方法与其他订阅方法并行调用,不能取消事件的投递
+        boolean parallel;
+        //当前线程是并行调用的线程池中的线程
+        boolean fanOutWorker;
+    }
+
+    /** Returns the logger configured with {@link EventBusBuilder#logger(Logger)}. */
+    public Logger getLogger() {
+        return logger;
     }
 
     //获取EventBus提供给进行发送到子线程中处理订阅方法是线程池对象
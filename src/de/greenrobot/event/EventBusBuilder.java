@@ -1,7 +1,13 @@
 package de.greenrobot.event;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -12,6 +18,10 @@ public class EventBusBuilder {
 	
 	//建造器中默认的线程池对象
     private final static ExecutorService DEFAULT_EXECUTOR_SERVICE = Executors.newCachedThreadPool();
+    private final static int DEFAULT_LARGE_FAN_OUT_THRESHOLD = 512;
+    private final static int DEFAULT_MAX_KEYED_STICKY_EVENTS_PER_TYPE = 1024;
+    private final static int DEFAULT_STICKY_EVENT_FILE_CAPACITY = 64 * 1024;
+    private final static int DEFAULT_DEAD_LETTER_QUEUE_SIZE = 100;
 
     boolean logSubscriberExceptions = true;
     boolean logNoSubscriberMessages = true;
@@ -19,8 +29,42 @@ public class EventBusBuilder {
     boolean sendNoSubscriberEvent = true;
     boolean throwSubscriberException;
     boolean eventInheritance = true;
+    //汇总没有订阅者的事件的周期,0表示不汇总
+    long noSubscriberAggregationMillis;
+    long subscriberExceptionWindowMillis;
+    int subscriberExceptionStackTraceSampling;
+    CircuitBreaker.Config circuitBreakerConfig;
+    Map<Class<?>, Map<Class<?>, RetryPolicy>> retryPolicies;
+    int deadLetterQueueSize = DEFAULT_DEAD_LETTER_QUEUE_SIZE;
+    long[] slowSubscriberBudgets;
+    long adaptiveOffloadThresholdMillis;
+    int adaptiveOffloadLaneCapacity;
+    int largeFanOutThreshold = DEFAULT_LARGE_FAN_OUT_THRESHOLD;
+    //按事件类型的配置:继承关系开关,强制使用的线程模式,叶子类型
+    Map<Class<?>, Boolean> eventInheritanceByType;
+    Map<Class<?>, ThreadMode> threadModeByType;
+    Set<Class<?>> leafEventTypes;
+    Set<Class<?>> parallelFanOutTypes;
+    //sticky事件的最大个数,0表示不限制
+    int maxStickyEvents;
+    //sticky事件的最大估算大小,0表示不限制
+    long maxStickyEventsSize;
+    EventSizeEstimator stickyEventSizeEstimator;
+    //事件类型 -> sticky事件的存活时间(毫秒)
+    Map<Class<?>, Long> stickyEventTimeToLive;
+    //每个事件类型按键存储的sticky事件的最大个数
+    int maxKeyedStickyEventsPerType = DEFAULT_MAX_KEYED_STICKY_EVENTS_PER_TYPE;
+    //事件类型 -> 判断sticky事件是否改变的比较器(null表示使用equals)
+    Map<Class<?>, Comparator<?>> distinctStickyEventTypes;
+    //持久化sticky事件的文件,以及需要持久化的事件类型 -> 序列化对象
+    File stickyEventFile;
+    int stickyEventFileCapacity = DEFAULT_STICKY_EVENT_FILE_CAPACITY;
+    Map<Class<?>, StickyEventSerializer<?>> stickyEventSerializers;
+    //事件类型 -> 回放缓存的配置
+    Map<Class<?>, ReplayBuffer.Config> replayBufferConfigs;
     //设置默认的线程池对象
     ExecutorService executorService = DEFAULT_EXECUTOR_SERVICE;
+    Logger logger;
     //定义集合对象,用于存储需要过滤检测的类
     List<Class<?>> skipMethodVerificationForClasses;
 
@@ -52,6 +96,20 @@ public class EventBusBuilder {
         return this;
     }
 
+    /**
+     * Instead of logging and posting a {@link NoSubscriberEvent} for each event without subscribers, counts those
+     * events per event type and reports them once per interval: as a single log line (if
+     * {@link #logNoSubscriberMessages(boolean)} is enabled) and as a {@link NoSubscriberSummaryEvent} (if
+     * {@link #sendNoSubscriberEvent(boolean)} is enabled). Counting does not lock and does not allocate per post.
+     */
+    public EventBusBuilder aggregateNoSubscriberEvents(long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Interval must be positive: " + intervalMillis);
+        }
+        this.noSubscriberAggregationMillis = intervalMillis;
+        return this;
+    }
+
     /**
      * Fails if an subscriber throws an exception (default: false).
      * <p/>
@@ -63,6 +121,137 @@ public class EventBusBuilder {
         return this;
     }
 
+    /**
+     * Deduplicates subscriber exceptions by subscriber, subscriber method and exception class within the given window.
+     * Only the first exception per window is logged and posted as a {@link SubscriberExceptionEvent}; repeated ones are
+     * counted and reported once per window: as a single log line (if {@link #logSubscriberExceptions(boolean)} is
+     * enabled) and as a {@link SubscriberExceptionSummaryEvent} (if {@link #sendSubscriberExceptionEvent(boolean)} is
+     * enabled).
+     *
+     * @param stackTraceSampleEvery logs the stack trace of every n-th repeated exception; 0 logs none of them
+     */
+    public EventBusBuilder aggregateSubscriberExceptions(long windowMillis, int stackTraceSampleEvery) {
+        if (windowMillis < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + windowMillis);
+        }
+        if (stackTraceSampleEvery < 0) {
+            throw new IllegalArgumentException("Sampling must not be negative: " + stackTraceSampleEvery);
+        }
+        this.subscriberExceptionWindowMillis = windowMillis;
+        this.subscriberExceptionStackTraceSampling = stackTraceSampleEvery;
+        return this;
+    }
+
+    /** Like {@link #aggregateSubscriberExceptions(long, int)}, but does not log stack traces of repeated exceptions. */
+    public EventBusBuilder aggregateSubscriberExceptions(long windowMillis) {
+        return aggregateSubscriberExceptions(windowMillis, 0);
+    }
+
+    /**
+     * Adds a circuit breaker to each subscriber method. Invocations are counted in consecutive windows of the given
+     * number of calls. If the failures in a window reach the failure rate, the breaker opens and events are not
+     * delivered to the subscriber method (they are skipped, not queued); retries of a {@link RetryPolicy} are delayed
+     * until the cooldown ended instead. After the cooldown, a single event is delivered as a probe: if it succeeds,
+     * the breaker closes, otherwise it opens again. Each state change is posted as a {@link CircuitBreakerEvent}.
+     */
+    public EventBusBuilder circuitBreaker(float failureRate, int windowSize, long cooldownMillis) {
+        if (failureRate <= 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Failure rate must be in (0, 1]: " + failureRate);
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        if (cooldownMillis < 0) {
+            throw new IllegalArgumentException("Cooldown must not be negative: " + cooldownMillis);
+        }
+        circuitBreakerConfig = new CircuitBreaker.Config(failureRate, windowSize, cooldownMillis);
+        return this;
+    }
+
+    /**
+     * Retries failed deliveries of the given event type to subscriber methods of the given subscriber class (or its
+     * subclasses). Retries are delayed by a shared timer and then delivered in the subscriber method's thread (a
+     * background thread for PostThread). Only after the last attempt failed, the exception is handled as configured
+     * (logging, {@link SubscriberExceptionEvent}) and the event is added to the dead letters (see
+     * {@link EventBus#getDeadLetters()}). Ignored if {@link #throwSubscriberException(boolean)} is enabled.
+     */
+    public EventBusBuilder retryPolicy(Class<?> subscriberClass, Class<?> eventType, RetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException("Retry policy must not be null");
+        }
+        if (retryPolicies == null) {
+            retryPolicies = new HashMap<Class<?>, Map<Class<?>, RetryPolicy>>();
+        }
+        Map<Class<?>, RetryPolicy> policiesByEventType = retryPolicies.get(subscriberClass);
+        if (policiesByEventType == null) {
+            policiesByEventType = new HashMap<Class<?>, RetryPolicy>();
+            retryPolicies.put(subscriberClass, policiesByEventType);
+        }
+        policiesByEventType.put(eventType, retryPolicy);
+        return this;
+    }
+
+    /** Maximum number of dead letters kept (default: 100); if exceeded, the oldest ones are dropped. */
+    public EventBusBuilder deadLetterQueueSize(int deadLetterQueueSize) {
+        if (deadLetterQueueSize < 1) {
+            throw new IllegalArgumentException("Dead letter queue size must be positive: " + deadLetterQueueSize);
+        }
+        this.deadLetterQueueSize = deadLetterQueueSize;
+        return this;
+    }
+
+    /**
+     * Enables the slow subscriber watchdog for subscriber methods of the given thread mode: each invocation taking
+     * longer than the budget is posted as a {@link SlowSubscriberEvent} and logged. A shared monitor thread samples
+     * running invocations at half the smallest budget and captures the stack of the thread still running a slow
+     * invocation.
+     */
+    public EventBusBuilder slowSubscriberBudget(ThreadMode threadMode, long budgetMillis) {
+        if (budgetMillis < 1) {
+            throw new IllegalArgumentException("Budget must be positive: " + budgetMillis);
+        }
+        if (slowSubscriberBudgets == null) {
+            slowSubscriberBudgets = new long[ThreadMode.values().length];
+        }
+        slowSubscriberBudgets[threadMode.ordinal()] = budgetMillis;
+        return this;
+    }
+
+    /**
+     * Moves deliveries of slow PostThread subscriber methods off the posting thread. Applies only to subscribers
+     * implementing {@link AsyncTolerantSubscriber}. If the average invocation time of such a subscriber method exceeds
+     * the threshold over several invocations, its events are delivered in a separate lane with the given capacity, one
+     * at a time and in order. Once the average drops below half the threshold, events are delivered in the posting
+     * thread again. The posting thread never waits for a full lane: such events are added to the dead letters (see
+     * {@link EventBus#getDeadLetters()}) and reported with a {@link SubscriberExceptionEvent}.
+     */
+    public EventBusBuilder adaptiveOffload(long thresholdMillis, int laneCapacity) {
+        if (thresholdMillis < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + thresholdMillis);
+        }
+        if (laneCapacity < 1) {
+            throw new IllegalArgumentException("Lane capacity must be positive: " + laneCapacity);
+        }
+        this.adaptiveOffloadThresholdMillis = thresholdMillis;
+        this.adaptiveOffloadLaneCapacity = laneCapacity;
+        return this;
+    }
+
+    /**
+     * Invokes PostThread subscribers of the given event type with the same priority concurrently: all but one run in
+     * a dedicated thread pool without a thread limit, one runs in the posting thread, which waits for all of them
+     * before continuing with the next priority. Use it for event types with many independent, CPU-bound subscribers.
+     * Subscribers can not cancel the delivery of events of this type. If they post events of a parallel type again,
+     * those are delivered one subscriber after the other.
+     */
+    public EventBusBuilder parallelFanOut(Class<?> eventType) {
+        if (parallelFanOutTypes == null) {
+            parallelFanOutTypes = new HashSet<Class<?>>();
+        }
+        parallelFanOutTypes.add(eventType);
+        return this;
+    }
+
     /**
      * By default, EventBus considers the event class hierarchy (subscribers to super classes will be notified).
      * Switching this feature off will improve posting of events. For simple event classes extending Object directly,
@@ -77,12 +266,226 @@ public class EventBusBuilder {
         return this;
     }
 
+    /**
+     * Overrides {@link #eventInheritance(boolean)} for events of the given type (exact class). This allows switching
+     * off event inheritance in general, while keeping it for the few types relying on it, or vice versa.
+     */
+    public EventBusBuilder eventInheritance(Class<?> eventType, boolean eventInheritance) {
+        if (eventInheritanceByType == null) {
+            eventInheritanceByType = new HashMap<Class<?>, Boolean>();
+        }
+        eventInheritanceByType.put(eventType, eventInheritance);
+        return this;
+    }
+
+    /**
+     * Delivers events of the given type (exact class) using the given thread mode, regardless of the thread mode of the
+     * subscriber methods.
+     */
+    public EventBusBuilder forceThreadMode(Class<?> eventType, ThreadMode threadMode) {
+        if (threadMode == null) {
+            throw new IllegalArgumentException("Thread mode must not be null");
+        }
+        if (threadModeByType == null) {
+            threadModeByType = new HashMap<Class<?>, ThreadMode>();
+        }
+        threadModeByType.put(eventType, threadMode);
+        return this;
+    }
+
+    /**
+     * Hints that the given event type is a final leaf type: events of it are delivered to subscribers of exactly this
+     * type only, and it has no sub types to be considered for sticky events. Posting skips resolving the type
+     * hierarchy entirely.
+     * <p/>
+     * Without hints, EventBus already skips super types and interfaces without subscribers while posting.
+     */
+    public EventBusBuilder leafEventType(Class<?> eventType) {
+        if (leafEventTypes == null) {
+            leafEventTypes = new HashSet<Class<?>>();
+        }
+        leafEventTypes.add(eventType);
+        return this;
+    }
+
+    /**
+     * Event types with at least this many subscriptions store them in chunks (default: 512). Registering or
+     * unregistering a subscriber then copies only the affected chunk instead of the whole subscription list. Below half
+     * of the threshold, a plain copy-on-write list is used again.
+     */
+    public EventBusBuilder largeFanOutThreshold(int largeFanOutThreshold) {
+        if (largeFanOutThreshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + largeFanOutThreshold);
+        }
+        this.largeFanOutThreshold = largeFanOutThreshold;
+        return this;
+    }
+
+    /**
+     * Limits the number of sticky events kept in memory (default: unlimited). If the limit is exceeded, the least
+     * recently used sticky event is evicted.
+     *
+     * @see EventBus#getStickyEvictionCount()
+     */
+    public EventBusBuilder maxStickyEvents(int maxStickyEvents) {
+        if (maxStickyEvents < 1) {
+            throw new IllegalArgumentException("Maximum must be positive: " + maxStickyEvents);
+        }
+        this.maxStickyEvents = maxStickyEvents;
+        return this;
+    }
+
+    /**
+     * Limits the estimated total size of sticky events kept in memory (default: unlimited). If the limit is exceeded,
+     * the least recently used sticky events are evicted.
+     *
+     * @see EventBus#getStickyEvictionCount()
+     */
+    public EventBusBuilder maxStickyEventsSize(long maxStickyEventsSize, EventSizeEstimator sizeEstimator) {
+        if (maxStickyEventsSize < 1) {
+            throw new IllegalArgumentException("Maximum must be positive: " + maxStickyEventsSize);
+        }
+        if (sizeEstimator == null) {
+            throw new IllegalArgumentException("Size estimator must not be null");
+        }
+        this.maxStickyEventsSize = maxStickyEventsSize;
+        this.stickyEventSizeEstimator = sizeEstimator;
+        return this;
+    }
+
+    /**
+     * Sticky events of the given type (including sub types) expire after the given time. Expired sticky events are
+     * removed and neither returned by {@link EventBus#getStickyEvent(Class)} nor delivered to sticky subscribers. If
+     * several configured types match an event, the most specific one is used. The time is measured in elapsed real
+     * time, so it includes the time the device spent in deep sleep.
+     */
+    public EventBusBuilder stickyEventTimeToLive(Class<?> eventType, long millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Time to live must be positive: " + millis);
+        }
+        if (stickyEventTimeToLive == null) {
+            stickyEventTimeToLive = new HashMap<Class<?>, Long>();
+        }
+        stickyEventTimeToLive.put(eventType, millis);
+        return this;
+    }
+
+    /**
+     * Limits the number of keys kept per event type for keyed sticky events (default: 1024). If the limit is exceeded,
+     * the key updated least recently is evicted.
+     *
+     * @see EventBus#postSticky(Object, Object)
+     */
+    public EventBusBuilder maxKeyedStickyEventsPerType(int maxKeyedStickyEventsPerType) {
+        if (maxKeyedStickyEventsPerType < 1) {
+            throw new IllegalArgumentException("Maximum must be positive: " + maxKeyedStickyEventsPerType);
+        }
+        this.maxKeyedStickyEventsPerType = maxKeyedStickyEventsPerType;
+        return this;
+    }
+
+    /**
+     * Suppresses {@link EventBus#postSticky(Object)} for events of the given type (exact class), if the event equals
+     * the current sticky event. Suppressed events are neither stored nor posted.
+     *
+     * @see EventBus#getSuppressedStickyPostCount()
+     */
+    public EventBusBuilder distinctStickyEvents(Class<?> eventType) {
+        return distinctStickyEvents(eventType, null);
+    }
+
+    /**
+     * Like {@link #distinctStickyEvents(Class)}, but considers events as equal if the given comparator returns 0. Pass
+     * null to use {@link Object#equals(Object)}.
+     */
+    public <T> EventBusBuilder distinctStickyEvents(Class<T> eventType, Comparator<? super T> comparator) {
+        if (distinctStickyEventTypes == null) {
+            distinctStickyEventTypes = new HashMap<Class<?>, Comparator<?>>();
+        }
+        distinctStickyEventTypes.put(eventType, comparator);
+        return this;
+    }
+
+    /**
+     * Sets the memory-mapped file, which keeps sticky events of the types registered with
+     * {@link #persistStickyEvents(Class, StickyEventSerializer)} across process restarts. The file starts with the
+     * given capacity in bytes and grows as needed. Persisted sticky events are restored lazily on first access.
+     * Changes are written in the thread pool (see {@link EventBus#flushStickyEvents()}). Other processes may read the
+     * file using {@link StickyEventFile#readSnapshot(File)}.
+     */
+    public EventBusBuilder stickyEventFile(File file, int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + initialCapacity);
+        }
+        this.stickyEventFile = file;
+        this.stickyEventFileCapacity = initialCapacity;
+        return this;
+    }
+
+    /** Like {@link #stickyEventFile(File, int)} using an initial capacity of 64 KB. */
+    public EventBusBuilder stickyEventFile(File file) {
+        return stickyEventFile(file, DEFAULT_STICKY_EVENT_FILE_CAPACITY);
+    }
+
+    /**
+     * Persists sticky events of the given type (exact class) to the file set with {@link #stickyEventFile(File)}
+     * using the given serializer.
+     */
+    public <T> EventBusBuilder persistStickyEvents(Class<T> eventType, StickyEventSerializer<T> serializer) {
+        if (stickyEventSerializers == null) {
+            stickyEventSerializers = new HashMap<Class<?>, StickyEventSerializer<?>>();
+        }
+        stickyEventSerializers.put(eventType, serializer);
+        return this;
+    }
+
+    /** Like {@link #replayBuffer(Class, int, long)} without an age limit. */
+    public EventBusBuilder replayBuffer(Class<?> eventType, int size) {
+        return replayBuffer(eventType, size, 0);
+    }
+
+    /**
+     * Keeps the last events posted to the given event type (including sub types if event inheritance is enabled) for
+     * subscribers registered with {@link EventBus#registerReplay(Object)}. Events older than maxAgeMillis are not
+     * replayed (0 for no age limit); the age is measured in elapsed real time, including deep sleep.
+     */
+    public EventBusBuilder replayBuffer(Class<?> eventType, int size, long maxAgeMillis) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be positive: " + size);
+        }
+        if (maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Age limit must not be negative: " + maxAgeMillis);
+        }
+        if (replayBufferConfigs == null) {
+            replayBufferConfigs = new HashMap<Class<?>, ReplayBuffer.Config>();
+        }
+        replayBufferConfigs.put(eventType, new ReplayBuffer.Config(size, maxAgeMillis));
+        return this;
+    }
+
     //根据自己的需要来设置此线程池对象
     public EventBusBuilder executorService(ExecutorService executorService) {
         this.executorService = executorService;
         return this;
     }
 
+    /**
+     * Sets the logger used by EventBus (default: Android's log if available, otherwise java.util.logging). Use
+     * {@link Logger#NONE} to disable logging completely.
+     */
+    public EventBusBuilder logger(Logger logger) {
+        if (logger == null) {
+            throw new IllegalArgumentException("Logger must not be null");
+        }
+        this.logger = logger;
+        return this;
+    }
+
+    //获取设置的日志对象,没有设置时根据运行环境创建默认的日志对象
+    Logger getLogger() {
+        return logger != null ? logger : Logger.getDefault();
+    }
+
     //在建造器对象中设置订阅对象内部的那些类可以跳过订阅方法检测处理
     public EventBusBuilder skipMethodVerificationFor(Class<?> clazz) {
     	//首先检测存储集合对象是否存在
@@ -0,0 +1,10 @@
+package de.greenrobot.event;
+
+/**
+ * Estimates the memory used by an event, e.g. the byte count of a bitmap it carries. Used to bound the memory of sticky
+ * events, see {@link EventBusBuilder#maxStickyEventsSize(long, EventSizeEstimator)}.
+ */
+public interface EventSizeEstimator {
+    /** Returns the estimated size of the given event in an arbitrary, but consistent unit (e.g. bytes). */
+    long estimateSize(Object event);
+}
@@ -0,0 +1,10 @@
+package de.greenrobot.event;
+
+/**
+ * Creates an event on demand, see {@link EventBus#postIfSubscribed(Class, EventSupplier)}.
+ */
+public interface EventSupplier<T> {
+
+    T get();
+
+}
@@ -0,0 +1,12 @@
+package de.greenrobot.event;
+
+/**
+ * Global listener receiving every posted event directly on the posting thread, see
+ * {@link EventBus#addTap(EventTap, int)}. Unlike a subscriber to Object, a tap does not make posts resolve the event
+ * type hierarchy. Implementations should be fast and must not block.
+ */
+public interface EventTap {
+
+    void onEvent(Object event);
+
+}
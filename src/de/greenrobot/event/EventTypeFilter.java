@@ -0,0 +1,49 @@
+package de.greenrobot.event;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of event types, which ever had a subscription. Types are only added, never removed, so a negative
+ * answer is definite and can be given without taking a lock.
+ */
+final class EventTypeFilter {
+
+    //位数组的大小,必须是2的幂
+    private static final int BIT_COUNT = 1024;
+
+    private final AtomicLongArray bits = new AtomicLongArray(BIT_COUNT / 64);
+
+    void add(Class<?> eventType) {
+        int hash = hash(eventType);
+        setBit(hash & (BIT_COUNT - 1));
+        setBit((hash >>> 16) & (BIT_COUNT - 1));
+    }
+
+    /** Returns false if the type was definitely never added. */
+    boolean mightContain(Class<?> eventType) {
+        int hash = hash(eventType);
+        return isSet(hash & (BIT_COUNT - 1)) && isSet((hash >>> 16) & (BIT_COUNT - 1));
+    }
+
+    private void setBit(int bit) {
+        int index = bit >>> 6;
+        long mask = 1L << (bit & 63);
+        while (true) {
+            long current = bits.get(index);
+            if ((current & mask) != 0 || bits.compareAndSet(index, current, current | mask)) {
+                return;
+            }
+        }
+    }
+
+    private boolean isSet(int bit) {
+        return (bits.get(bit >>> 6) & (1L << (bit & 63))) != 0;
+    }
+
+    //对identity hash进行扰动,使高位和低位都参与计算
+    private static int hash(Class<?> eventType) {
+        int hash = System.identityHashCode(eventType) * 0x9E3779B9;
+        return hash ^ (hash >>> 15);
+    }
+
+}
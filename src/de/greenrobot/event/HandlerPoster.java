@@ -28,7 +28,10 @@ final class HandlerPoster extends Handler {
     //用于向主线程中对应的触发订阅方法集合中添加一个新的需要触发的订阅方法
     void enqueue(Subscription subscription, Object event) {
     	//根据订阅对象,订阅类型来创建一个挂载订阅对象
-        PendingPost pendingPost = PendingPost.obtainPendingPost(subscription, event);
+        enqueue(PendingPost.obtainPendingPost(subscription, event));
+    }
+
+    void enqueue(PendingPost pendingPost) {
         synchronized (this) {
         	//将挂载的订阅方法添加到队列中
             queue.enqueue(pendingPost);
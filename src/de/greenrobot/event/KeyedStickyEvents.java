@@ -0,0 +1,83 @@
+package de.greenrobot.event;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The most recent sticky event per key for a single event type. The number of keys is bounded; when exceeded, the
+ * key updated least recently is evicted.
+ */
+final class KeyedStickyEvents {
+
+    //键 -> 该键最新的sticky事件
+    private final ConcurrentHashMap<Object, Entry> eventsByKey;
+    private final int maxKeys;
+    //用于记录更新顺序,淘汰最久没有更新的键
+    private final AtomicLong sequence;
+
+    KeyedStickyEvents(int maxKeys) {
+        this.maxKeys = maxKeys;
+        eventsByKey = new ConcurrentHashMap<Object, Entry>();
+        sequence = new AtomicLong();
+    }
+
+    Object get(Object key) {
+        Entry entry = eventsByKey.get(key);
+        return entry != null ? entry.event : null;
+    }
+
+    /** Stores the event for the key and returns the number of evicted keys. */
+    int put(Object key, Object event) {
+        eventsByKey.put(key, new Entry(event, sequence.incrementAndGet()));
+        int evicted = 0;
+        while (eventsByKey.size() > maxKeys) {
+            Object eldestKey = null;
+            Entry eldest = null;
+            for (Map.Entry<Object, Entry> candidate : eventsByKey.entrySet()) {
+                Entry entry = candidate.getValue();
+                if (eldest == null || entry.sequence < eldest.sequence) {
+                    eldestKey = candidate.getKey();
+                    eldest = entry;
+                }
+            }
+            if (eldest == null) {
+                break;
+            }
+            if (eventsByKey.remove(eldestKey, eldest)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    Object remove(Object key) {
+        Entry removed = eventsByKey.remove(key);
+        return removed != null ? removed.event : null;
+    }
+
+    void clear() {
+        eventsByKey.clear();
+    }
+
+    //返回当前所有键和事件的快照
+    Map<Object, Object> snapshot() {
+        Map<Object, Object> snapshot = new HashMap<Object, Object>();
+        for (Map.Entry<Object, Entry> entry : eventsByKey.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().event);
+        }
+        return snapshot;
+    }
+
+    private static final class Entry {
+        final Object event;
+        final long sequence;
+
+        Entry(Object event, long sequence) {
+            this.event = event;
+            this.sequence = sequence;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package de.greenrobot.event;
+
+/**
+ * Logging SPI used by EventBus, set with {@link EventBusBuilder#logger(Logger)}. Implementations decide which levels
+ * are enabled and write the final message. Messages are formatted only if the level is enabled: each "{}" in a format
+ * string is replaced by the next argument's string value. A trailing throwable is not a format argument.
+ * <p/>
+ * EventBus comes with {@link AndroidLogger}, {@link JavaLogger} and {@link #NONE}. By default, Android's log is used if
+ * available, otherwise java.util.logging.
+ */
+public abstract class Logger {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    /** Logger discarding all messages. */
+    public static final Logger NONE = new Logger() {
+        @Override
+        public boolean isLoggable(Level level) {
+            return false;
+        }
+
+        @Override
+        protected void write(Level level, String message, Throwable throwable) {
+        }
+    };
+
+    private static final String PLACEHOLDER = "{}";
+
+    public abstract boolean isLoggable(Level level);
+
+    /** Writes an already formatted message; only called for enabled levels. The throwable may be null. */
+    protected abstract void write(Level level, String message, Throwable throwable);
+
+    public final void log(Level level, String message) {
+        if (isLoggable(level)) {
+            write(level, message, null);
+        }
+    }
+
+    public final void log(Level level, String message, Throwable throwable) {
+        if (isLoggable(level)) {
+            write(level, message, throwable);
+        }
+    }
+
+    public final void log(Level level, String format, Object arg) {
+        if (isLoggable(level)) {
+            write(level, format(format, arg), null);
+        }
+    }
+
+    public final void log(Level level, String format, Object arg, Throwable throwable) {
+        if (isLoggable(level)) {
+            write(level, format(format, arg), throwable);
+        }
+    }
+
+    public final void log(Level level, String format, Object arg1, Object arg2) {
+        if (isLoggable(level)) {
+            write(level, format(format, arg1, arg2), null);
+        }
+    }
+
+    public final void log(Level level, String format, Object arg1, Object arg2, Throwable throwable) {
+        if (isLoggable(level)) {
+            write(level, format(format, arg1, arg2), throwable);
+        }
+    }
+
+    public final void log(Level level, String format, Object[] args, Throwable throwable) {
+        if (isLoggable(level)) {
+            write(level, format(format, args), throwable);
+        }
+    }
+
+    //用参数依次替换格式中的"{}",多余的参数被忽略
+    static String format(String format, Object... args) {
+        StringBuilder builder = new StringBuilder(format.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int index = format.indexOf(PLACEHOLDER, start);
+            if (index < 0) {
+                break;
+            }
+            builder.append(format, start, index).append(arg);
+            start = index + PLACEHOLDER.length();
+        }
+        return builder.append(format, start, format.length()).toString();
+    }
+
+    //android.util.Log在普通的JVM中不存在时使用java.util.logging
+    static Logger getDefault() {
+        try {
+            Class.forName("android.util.Log");
+            return new AndroidLogger(EventBus.TAG);
+        } catch (ClassNotFoundException e) {
+            return new JavaLogger(java.util.logging.Logger.getLogger(EventBus.TAG));
+        }
+    }
+
+    /** Logs to Android's log with the given tag, by default including debug messages. */
+    public static class AndroidLogger extends Logger {
+        private final String tag;
+        private final Level minLevel;
+
+        public AndroidLogger(String tag) {
+            this(tag, Level.DEBUG);
+        }
+
+        public AndroidLogger(String tag, Level minLevel) {
+            this.tag = tag;
+            this.minLevel = minLevel;
+        }
+
+        @Override
+        public boolean isLoggable(Level level) {
+            return level.compareTo(minLevel) >= 0;
+        }
+
+        @Override
+        protected void write(Level level, String message, Throwable throwable) {
+            switch (level) {
+                case DEBUG:
+                    android.util.Log.d(tag, message, throwable);
+                    break;
+                case INFO:
+                    android.util.Log.i(tag, message, throwable);
+                    break;
+                case WARN:
+                    android.util.Log.w(tag, message, throwable);
+                    break;
+                default:
+                    android.util.Log.e(tag, message, throwable);
+                    break;
+            }
+        }
+    }
+
+    /** Logs to a java.util.logging logger, which can be used on a plain JVM. */
+    public static class JavaLogger extends Logger {
+        private final java.util.logging.Logger logger;
+
+        public JavaLogger(java.util.logging.Logger logger) {
+            this.logger = logger;
+        }
+
+        @Override
+        public boolean isLoggable(Level level) {
+            return logger.isLoggable(toJavaLevel(level));
+        }
+
+        @Override
+        protected void write(Level level, String message, Throwable throwable) {
+            logger.log(toJavaLevel(level), message, throwable);
+        }
+
+        private static java.util.logging.Level toJavaLevel(Level level) {
+            switch (level) {
+                case DEBUG:
+                    return java.util.logging.Level.FINE;
+                case INFO:
+                    return java.util.logging.Level.INFO;
+                case WARN:
+                    return java.util.logging.Level.WARNING;
+                default:
+                    return java.util.logging.Level.SEVERE;
+            }
+        }
+    }
+
+}
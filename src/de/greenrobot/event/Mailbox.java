@@ -0,0 +1,60 @@
+package de.greenrobot.event;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mailbox of a single subscriber object for {@link ThreadMode#Mailbox}. Enqueuing is lock-free. The mailbox is
+ * scheduled on the EventBus executor service only while it has events; a single task delivers them one at a time and
+ * in order. After a batch, the task is scheduled again, so busy mailboxes do not occupy threads from other mailboxes.
+ */
+final class Mailbox implements Runnable {
+
+    private final static int MAX_EVENTS_PER_RUN = 64;
+
+    private final EventBus eventBus;
+    private final ConcurrentLinkedQueue<PendingPost> queue;
+    //为true时已经有任务在线程池中执行或等待执行
+    private final AtomicBoolean scheduled;
+
+    Mailbox(EventBus eventBus) {
+        this.eventBus = eventBus;
+        queue = new ConcurrentLinkedQueue<PendingPost>();
+        scheduled = new AtomicBoolean();
+    }
+
+    void enqueue(Subscription subscription, Object event) {
+        enqueue(PendingPost.obtainPendingPost(subscription, event));
+    }
+
+    void enqueue(PendingPost pendingPost) {
+        queue.offer(pendingPost);
+        schedule();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < MAX_EVENTS_PER_RUN; i++) {
+                PendingPost pendingPost = queue.poll();
+                if (pendingPost == null) {
+                    break;
+                }
+                eventBus.invokeSubscriber(pendingPost);
+            }
+        } finally {
+            scheduled.set(false);
+            //先清除标记再检查队列:期间加入的事件要么由加入的线程调度,要么在这里调度
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            eventBus.getExecutorService().execute(this);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package de.greenrobot.event;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts posted events without subscribers per event type and reports the counts periodically. Counting does not lock;
+ * the report runs on the {@link SharedScheduler}. The EventBus is only referenced weakly, the task stops once the
+ * EventBus is garbage collected.
+ */
+final class NoSubscriberAggregator implements Runnable {
+
+    private final WeakReference<EventBus> eventBusReference;
+    private final long intervalMillis;
+    //事件类型 -> 当前周期内没有订阅者的事件个数;计数对象创建后一直保留,只对其清零
+    private final ConcurrentHashMap<Class<?>, AtomicLong> counts;
+    private volatile ScheduledFuture<?> future;
+
+    NoSubscriberAggregator(EventBus eventBus, long intervalMillis) {
+        eventBusReference = new WeakReference<EventBus>(eventBus);
+        this.intervalMillis = intervalMillis;
+        counts = new ConcurrentHashMap<Class<?>, AtomicLong>();
+    }
+
+    void start() {
+        future = SharedScheduler.get().scheduleAtFixedRate(this, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    void count(Class<?> eventType) {
+        AtomicLong count = counts.get(eventType);
+        if (count == null) {
+            count = new AtomicLong();
+            AtomicLong existing = counts.putIfAbsent(eventType, count);
+            if (existing != null) {
+                count = existing;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    /** Returns the counts since the last call and resets them. */
+    Map<Class<?>, Long> drain() {
+        Map<Class<?>, Long> summary = new HashMap<Class<?>, Long>();
+        for (Map.Entry<Class<?>, AtomicLong> entry : counts.entrySet()) {
+            long count = entry.getValue().getAndSet(0);
+            if (count > 0) {
+                summary.put(entry.getKey(), count);
+            }
+        }
+        return summary;
+    }
+
+    @Override
+    public void run() {
+        EventBus eventBus = eventBusReference.get();
+        if (eventBus == null) {
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            return;
+        }
+        Map<Class<?>, Long> summary = drain();
+        if (!summary.isEmpty()) {
+            eventBus.reportNoSubscriberSummary(summary, intervalMillis);
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package de.greenrobot.event;
+
+import java.util.Map;
+
+/**
+ * This Event is posted periodically by EventBus instead of {@link NoSubscriberEvent} if aggregation is enabled using
+ * {@link EventBusBuilder#aggregateNoSubscriberEvents(long)}.
+ */
+public final class NoSubscriberSummaryEvent {
+    /** The {@link EventBus} instance to with the original events were posted to. */
+    public final EventBus eventBus;
+
+    /** Number of events without subscribers by event type posted during the interval. */
+    public final Map<Class<?>, Long> countsByEventType;
+
+    /** The aggregation interval in milliseconds. */
+    public final long intervalMillis;
+
+    public NoSubscriberSummaryEvent(EventBus eventBus, Map<Class<?>, Long> countsByEventType, long intervalMillis) {
+        this.eventBus = eventBus;
+        this.countsByEventType = countsByEventType;
+        this.intervalMillis = intervalMillis;
+    }
+
+}
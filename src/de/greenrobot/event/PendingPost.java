@@ -21,6 +21,8 @@ final class PendingPost {
     Subscription subscription;
     //
     PendingPost next;
+    //之前失败的投递次数,用于重试
+    int failedAttempts;
 
     //根据类型和订阅对象进行构造对象
     private PendingPost(Object event, Subscription subscription) {
@@ -41,6 +43,7 @@ final class PendingPost {
                 pendingPost.event = event;
                 pendingPost.subscription = subscription;
                 pendingPost.next = null;
+                pendingPost.failedAttempts = 0;
                 return pendingPost;
             }
         }
@@ -54,6 +57,7 @@ final class PendingPost {
         pendingPost.event = null;
         pendingPost.subscription = null;
         pendingPost.next = null;
+        pendingPost.failedAttempts = 0;
         //
         synchronized (pendingPostPool) {
             //判断池子中对象个数是否超过预设值
@@ -0,0 +1,76 @@
+package de.greenrobot.event;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring buffer keeping the last events posted for an event type. Adding an event does not lock: a sequence number is
+ * claimed atomically and the event is written to the slot of that number. Readers only take slots whose sequence
+ * number matches, so they never see an overwritten or half written slot.
+ */
+final class ReplayBuffer {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int capacity;
+    //下一个事件的序号
+    private final AtomicLong nextSequence;
+    //事件的最大存活时间,0表示不限制
+    private final long maxAgeMillis;
+
+    ReplayBuffer(Config config) {
+        capacity = config.size;
+        maxAgeMillis = config.maxAgeMillis;
+        slots = new AtomicReferenceArray<Entry>(capacity);
+        nextSequence = new AtomicLong();
+    }
+
+    void add(Object event) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) (sequence % capacity), new Entry(event, sequence, SystemClock.elapsedRealtime()));
+    }
+
+    /** Returns the buffered events, oldest first, leaving out events older than the age limit. */
+    List<Object> getEvents() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - capacity);
+        //包含深度睡眠的时间,否则设备睡眠后会重放过期很久的事件
+        long now = SystemClock.elapsedRealtime();
+        List<Object> events = new ArrayList<Object>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Entry entry = slots.get((int) (sequence % capacity));
+            if (entry != null && entry.sequence == sequence
+                    && (maxAgeMillis == 0 || now - entry.postedMillis <= maxAgeMillis)) {
+                events.add(entry.event);
+            }
+        }
+        return events;
+    }
+
+    //建造器中的配置,每个EventBus对象根据配置创建自己的缓存
+    static final class Config {
+        final int size;
+        final long maxAgeMillis;
+
+        Config(int size, long maxAgeMillis) {
+            this.size = size;
+            this.maxAgeMillis = maxAgeMillis;
+        }
+    }
+
+    private static final class Entry {
+        final Object event;
+        final long sequence;
+        final long postedMillis;
+
+        Entry(Object event, long sequence, long postedMillis) {
+            this.event = event;
+            this.sequence = sequence;
+            this.postedMillis = postedMillis;
+        }
+    }
+
+}
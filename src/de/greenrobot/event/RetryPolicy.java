@@ -0,0 +1,39 @@
+package de.greenrobot.event;
+
+/**
+ * Retry policy for a subscriber method, set with {@link EventBusBuilder#retryPolicy(Class, Class, RetryPolicy)}. A
+ * failed delivery is retried after a backoff, which starts with the initial backoff and doubles with each failed
+ * attempt up to the maximum backoff. Only use it for subscribers which can handle the same event more than once.
+ */
+public final class RetryPolicy {
+
+    final int maxAttempts;
+    final long initialBackoffMillis;
+    final long maxBackoffMillis;
+
+    /**
+     * @param maxAttempts number of deliveries including the first one; after that, the event goes to the dead letters
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+        }
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Illegal backoff: " + initialBackoffMillis + ", max "
+                    + maxBackoffMillis);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /** Returns the delay before the next delivery after the given number of failed attempts. */
+    long getBackoffMillis(int failedAttempts) {
+        long backoff = initialBackoffMillis;
+        for (int i = 1; i < failedAttempts && backoff < maxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        return Math.min(backoff, maxBackoffMillis);
+    }
+
+}
@@ -0,0 +1,28 @@
+package de.greenrobot.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delays failed deliveries on the {@link SharedScheduler} and then hands them over to the regular posters. No thread
+ * is blocked while waiting for a retry.
+ */
+final class RetryPoster {
+
+    private final EventBus eventBus;
+
+    RetryPoster(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    void enqueue(Subscription subscription, Object event, int failedAttempts, long delayMillis) {
+        final PendingPost pendingPost = PendingPost.obtainPendingPost(subscription, event);
+        pendingPost.failedAttempts = failedAttempts;
+        SharedScheduler.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                eventBus.enqueueRetry(pendingPost);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,32 @@
+package de.greenrobot.event;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A single daemon thread shared by all EventBus instances for periodic and delayed housekeeping tasks. Tasks must be
+ * short; they should hand over any real work (like posting events) to the regular posters.
+ */
+final class SharedScheduler {
+
+    private static ScheduledExecutorService scheduler;
+
+    private SharedScheduler() {
+    }
+
+    static synchronized ScheduledExecutorService get() {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "EventBus Scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return scheduler;
+    }
+
+}
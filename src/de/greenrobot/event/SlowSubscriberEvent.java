@@ -0,0 +1,50 @@
+package de.greenrobot.event;
+
+import java.lang.reflect.Method;
+
+/**
+ * This Event is posted by EventBus when a subscriber method exceeds the budget of its thread mode, see
+ * {@link EventBusBuilder#slowSubscriberBudget(ThreadMode, long)}.
+ */
+public final class SlowSubscriberEvent {
+    /** The {@link EventBus} instance the subscriber is registered to. */
+    public final EventBus eventBus;
+
+    /** The class of the subscriber, or null if a weakly registered subscriber was garbage collected. */
+    public final Class<?> subscriberClass;
+
+    public final Method subscriberMethod;
+
+    public final Class<?> eventType;
+
+    public final ThreadMode threadMode;
+
+    public final long budgetMillis;
+
+    /** Time the invocation took or, if it was still running, the time it had taken when its stack was sampled. */
+    public final long elapsedMillis;
+
+    /** Name of the thread running the invocation. */
+    public final String threadName;
+
+    /**
+     * The stack of the thread while it was still running the slow invocation, or null if the invocation finished
+     * before it was sampled.
+     */
+    public final StackTraceElement[] stackTrace;
+
+    public SlowSubscriberEvent(EventBus eventBus, Class<?> subscriberClass, Method subscriberMethod,
+            Class<?> eventType, ThreadMode threadMode, long budgetMillis, long elapsedMillis, String threadName,
+            StackTraceElement[] stackTrace) {
+        this.eventBus = eventBus;
+        this.subscriberClass = subscriberClass;
+        this.subscriberMethod = subscriberMethod;
+        this.eventType = eventType;
+        this.threadMode = threadMode;
+        this.budgetMillis = budgetMillis;
+        this.elapsedMillis = elapsedMillis;
+        this.threadName = threadName;
+        this.stackTrace = stackTrace;
+    }
+
+}
@@ -0,0 +1,288 @@
+package de.greenrobot.event;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped file holding persisted sticky events. Each change appends a record (event class name and serialized
+ * event, or a removal marker); when the file is full, the latest record of each type is written to a new file, which
+ * then replaces the old one. Changes are not forced to disk: the OS writes the mapped pages back, which survives a
+ * process restart.
+ * <p/>
+ * The header contains a sequence number, which is odd while the file is changed, and a checksum of the records. Mapped
+ * memory gives no ordering guarantees between processes, so other processes reading the file using
+ * {@link #readSnapshot(File)} rely on the checksum to detect a snapshot taken during a change. Only one EventBus (in
+ * one process) must write to a file.
+ */
+public final class StickyEventFile {
+
+    private static final int MAGIC = 0x45425354;
+    private static final int FORMAT_VERSION = 2;
+    //文件头:标识(4) 格式版本(4) 修改序号(8) 有效数据的结束位置(4) 记录的CRC32校验和(4)
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int END_OFFSET = 16;
+    private static final int CHECKSUM_OFFSET = 20;
+    private static final int HEADER_SIZE = 24;
+    //删除记录的数据长度
+    private static final int REMOVED = -1;
+    private static final int MAX_READ_ATTEMPTS = 100;
+    private static final String UTF8 = "UTF-8";
+
+    private final File path;
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    //修改序号,修改过程中为奇数
+    private long sequence;
+    private int end;
+    //从文件头到end之间所有记录的校验和,追加记录时增量计算
+    private final CRC32 checksum;
+    //事件类名 -> 最新的序列化数据,用于压缩文件
+    private final Map<String, byte[]> records;
+    private boolean closed;
+
+    /** Opens the file; records of event classes not contained in the given names are removed from it. */
+    StickyEventFile(File path, int initialCapacity, Set<String> typeNames) throws IOException {
+        this.path = path;
+        checksum = new CRC32();
+        records = new HashMap<String, byte[]>();
+        boolean clean = false;
+        int capacity = initialCapacity;
+        if (path.length() >= HEADER_SIZE) {
+            file = new RandomAccessFile(path, "rw");
+            capacity = (int) Math.max(file.length(), initialCapacity);
+            map(capacity);
+            if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == FORMAT_VERSION) {
+                sequence = buffer.getLong(SEQUENCE_OFFSET);
+                end = buffer.getInt(END_OFFSET);
+                byte[] content = readContent(buffer, end);
+                if (content != null) {
+                    checksum.update(content);
+                    boolean complete = readRecords(content, records);
+                    clean = complete && (sequence & 1) == 0 && (int) checksum.getValue() == buffer.getInt(
+                            CHECKSUM_OFFSET);
+                }
+            }
+        }
+        //不再持久化的类型的记录不会再被读取,需要从文件中清除
+        for (Iterator<String> iterator = records.keySet().iterator(); iterator.hasNext(); ) {
+            if (!typeNames.contains(iterator.next())) {
+                iterator.remove();
+                clean = false;
+            }
+        }
+        //新文件,上次修改没有完成(例如进程被杀死)或数据不完整时,根据已读取的记录重写文件
+        if (!clean) {
+            compact(Math.max(capacity, HEADER_SIZE), 0);
+        }
+    }
+
+    /** Returns the latest serialized event per event class name. */
+    synchronized Map<String, byte[]> getRecords() {
+        return new HashMap<String, byte[]>(records);
+    }
+
+    /** Appends a record for the given event class; null data marks the sticky event as removed. */
+    synchronized void write(String typeName, byte[] data) throws IOException {
+        if (closed) {
+            throw new IOException("Sticky event file was closed: " + path);
+        }
+        if (data == null && records.remove(typeName) == null) {
+            return;
+        } else if (data != null) {
+            records.put(typeName, data);
+        }
+        byte[] record = encodeRecord(typeName.getBytes(UTF8), data);
+        if (end + record.length <= buffer.capacity()) {
+            buffer.putLong(SEQUENCE_OFFSET, ++sequence);
+            ByteBuffer target = buffer.duplicate();
+            target.position(end);
+            target.put(record);
+            end += record.length;
+            checksum.update(record);
+            buffer.putInt(END_OFFSET, end);
+            buffer.putInt(CHECKSUM_OFFSET, (int) checksum.getValue());
+            buffer.putLong(SEQUENCE_OFFSET, ++sequence);
+        } else {
+            //记录中已经包含了本次的修改
+            compact(buffer.capacity(), record.length);
+        }
+    }
+
+    /** Closes the file; later changes fail. The mapping itself is released when it is garbage collected. */
+    synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            buffer = null;
+            file.close();
+        }
+    }
+
+    /**
+     * Reads a consistent snapshot of the given file, which may be written concurrently by another process. The events
+     * are mapped by their class name and must be deserialized by the caller.
+     */
+    public static Map<String, byte[]> readSnapshot(File path) throws IOException {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            //压缩时文件会被替换,每次尝试都重新打开
+            RandomAccessFile file = new RandomAccessFile(path, "r");
+            try {
+                long length = file.length();
+                if (length < HEADER_SIZE) {
+                    throw new IOException("Not a sticky event file: " + path);
+                }
+                ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                    throw new IOException("Not a sticky event file: " + path);
+                }
+                long sequenceBefore = buffer.getLong(SEQUENCE_OFFSET);
+                if ((sequenceBefore & 1) == 0) {
+                    int expectedChecksum = buffer.getInt(CHECKSUM_OFFSET);
+                    byte[] content = readContent(buffer, buffer.getInt(END_OFFSET));
+                    //序号不能保证其他进程写入的顺序,由校验和判断读取的内容是否完整
+                    if (content != null && buffer.getLong(SEQUENCE_OFFSET) == sequenceBefore
+                            && (int) checksumOf(content) == expectedChecksum) {
+                        Map<String, byte[]> records = new HashMap<String, byte[]>();
+                        if (readRecords(content, records)) {
+                            return records;
+                        }
+                    }
+                }
+            } finally {
+                file.close();
+            }
+            Thread.yield();
+        }
+        throw new IOException("Sticky event file is modified continuously: " + path);
+    }
+
+    //将所有记录写入一个新的临时文件,然后替换原来的文件;其他进程读取时不会看到写了一半的文件
+    private void compact(int capacity, int reserve) throws IOException {
+        int size = HEADER_SIZE;
+        Map<byte[], byte[]> encoded = new HashMap<byte[], byte[]>();
+        for (Map.Entry<String, byte[]> record : records.entrySet()) {
+            byte[] name = record.getKey().getBytes(UTF8);
+            encoded.put(name, record.getValue());
+            size += recordSize(name, record.getValue());
+        }
+        if (size + reserve > capacity) {
+            capacity = Math.max(2 * capacity, size + reserve);
+        }
+        ByteBuffer content = ByteBuffer.allocate(capacity);
+        content.position(HEADER_SIZE);
+        checksum.reset();
+        for (Map.Entry<byte[], byte[]> record : encoded.entrySet()) {
+            byte[] bytes = encodeRecord(record.getKey(), record.getValue());
+            content.put(bytes);
+            checksum.update(bytes);
+        }
+        end = content.position();
+        //新文件的序号大于原来的序号,并且为偶数
+        sequence = (sequence | 1) + 1;
+        content.putInt(0, MAGIC);
+        content.putInt(4, FORMAT_VERSION);
+        content.putLong(SEQUENCE_OFFSET, sequence);
+        content.putInt(END_OFFSET, end);
+        content.putInt(CHECKSUM_OFFSET, (int) checksum.getValue());
+        content.clear();
+
+        File tempPath = new File(path.getPath() + ".tmp");
+        RandomAccessFile tempFile = new RandomAccessFile(tempPath, "rw");
+        try {
+            tempFile.setLength(capacity);
+            FileChannel channel = tempFile.getChannel();
+            while (content.hasRemaining()) {
+                channel.write(content, content.position());
+            }
+            //替换之前写入磁盘,保证替换后的文件内容完整
+            channel.force(true);
+        } finally {
+            tempFile.close();
+        }
+        if (!tempPath.renameTo(path)) {
+            tempPath.delete();
+            throw new IOException("Could not replace sticky event file " + path);
+        }
+        if (file != null) {
+            file.close();
+        }
+        file = new RandomAccessFile(path, "rw");
+        map(capacity);
+    }
+
+    private void map(int capacity) throws IOException {
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private static byte[] encodeRecord(byte[] name, byte[] data) {
+        ByteBuffer record = ByteBuffer.allocate(recordSize(name, data));
+        record.putInt(name.length);
+        record.put(name);
+        if (data != null) {
+            record.putInt(data.length);
+            record.put(data);
+        } else {
+            record.putInt(REMOVED);
+        }
+        return record.array();
+    }
+
+    private static int recordSize(byte[] name, byte[] data) {
+        return 8 + name.length + (data != null ? data.length : 0);
+    }
+
+    private static long checksumOf(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    //复制文件头之后的所有记录;结束位置无效时返回null
+    private static byte[] readContent(ByteBuffer buffer, int end) {
+        if (end < HEADER_SIZE || end > buffer.capacity()) {
+            return null;
+        }
+        byte[] content = new byte[end - HEADER_SIZE];
+        ByteBuffer source = buffer.duplicate();
+        source.position(HEADER_SIZE);
+        source.get(content);
+        return content;
+    }
+
+    //读取所有记录,每个类型只保留最新的数据;数据不完整时返回false
+    private static boolean readRecords(byte[] content, Map<String, byte[]> records) throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(content);
+        while (source.hasRemaining()) {
+            if (source.remaining() < 4) {
+                return false;
+            }
+            int nameLength = source.getInt();
+            if (nameLength < 0 || source.remaining() < nameLength + 4) {
+                return false;
+            }
+            byte[] name = new byte[nameLength];
+            source.get(name);
+            int dataLength = source.getInt();
+            String typeName = new String(name, UTF8);
+            if (dataLength == REMOVED) {
+                records.remove(typeName);
+            } else if (dataLength < 0 || source.remaining() < dataLength) {
+                return false;
+            } else {
+                byte[] data = new byte[dataLength];
+                source.get(data);
+                records.put(typeName, data);
+            }
+        }
+        return true;
+    }
+
+}
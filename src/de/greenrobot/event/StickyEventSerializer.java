@@ -0,0 +1,14 @@
+package de.greenrobot.event;
+
+/**
+ * Converts sticky events of a type to bytes and back, so they can be persisted.
+ *
+ * @see EventBusBuilder#persistStickyEvents(Class, StickyEventSerializer)
+ */
+public interface StickyEventSerializer<T> {
+
+    byte[] serialize(T event);
+
+    T deserialize(byte[] data);
+
+}
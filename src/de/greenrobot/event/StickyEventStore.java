@@ -0,0 +1,584 @@
+package de.greenrobot.event;
+
+import android.os.SystemClock;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free store of the most recent sticky event per event type. Each stored event gets a version stamp. An index
+ * from super classes and interfaces to the stored event types allows looking up all sticky events assignable to a type
+ * without iterating over the whole store.
+ * <p/>
+ * The store may be bounded by entry count and/or estimated size; the least recently used entries are evicted first.
+ * Entries of types with a time to live expire and are removed on access. The time to live is measured in elapsed real
+ * time, which includes deep sleep.
+ * <p/>
+ * Sticky events of persistent types are mirrored to a {@link StickyEventFile}. On construction, the file is read, but
+ * its events are deserialized on first access only. Changes are serialized and written in the thread pool, so posting
+ * threads do not wait for file I/O; records which can not be deserialized are dropped.
+ */
+final class StickyEventStore {
+
+    //事件类型 -> sticky事件的存储项;所有修改都通过ConcurrentHashMap的原子操作完成,不需要加锁
+    private final ConcurrentHashMap<Class<?>, StickyEntry> stickyEvents;
+    //sticky事件的类型索引:父类或接口 -> 可以赋值给它的sticky事件类型;注册sticky订阅者时只需查看相关的sticky事件
+    private final ConcurrentHashMap<Class<?>, Set<Class<?>>> stickyTypesBySupertype;
+    //用于生成版本号,保证版本号递增且不会重复
+    private final AtomicLong versionCounter;
+
+    //sticky事件的最大个数和最大估算大小,0表示不限制
+    private final int maxEntries;
+    private final long maxSize;
+    private final EventSizeEstimator sizeEstimator;
+    //当前所有sticky事件的估算大小
+    private final AtomicLong currentSize;
+    //按访问顺序排列的sticky事件类型,第一个是最近最少使用的,淘汰时不需要遍历;只在有限制时使用,由自身加锁
+    private final LinkedHashMap<Class<?>, Boolean> accessOrder;
+    private final boolean bounded;
+
+    //配置的事件类型 -> 存活时间;以及每个事件类型解析后的存活时间缓存(0表示不会过期)
+    private final Map<Class<?>, Long> timeToLiveConfig;
+    private final ConcurrentHashMap<Class<?>, Long> timeToLiveByEventType;
+
+    //事件类型 -> 按键存储的sticky事件,以及对应的类型索引(只会增长)
+    private final ConcurrentHashMap<Class<?>, KeyedStickyEvents> keyedStickyEvents;
+    private final ConcurrentHashMap<Class<?>, Set<Class<?>>> keyedTypesBySupertype;
+    private final int maxKeyedEventsPerType;
+
+    //只在改变时才存储的事件类型 -> 比较器(null表示使用equals);没有配置时为null
+    private final Map<Class<?>, Comparator<?>> distinctEventTypes;
+
+    //持久化sticky事件的文件,以及需要持久化的事件类型 -> 序列化对象;没有配置时为null
+    private final StickyEventFile stickyEventFile;
+    private final Map<Class<?>, StickyEventSerializer<Object>> serializers;
+    //从文件中读取但还没有反序列化的sticky事件,第一次访问时才进行反序列化
+    private final ConcurrentHashMap<Class<?>, byte[]> pendingRestore;
+    //还没有写入文件的事件类型;写入时读取当前的sticky事件,所以同一类型的多次修改只写入一次
+    private final ConcurrentHashMap<Class<?>, Boolean> unpersistedTypes;
+    private final AtomicBoolean persistScheduled;
+    private final ExecutorService executorService;
+    private final Runnable persistTask;
+    private volatile boolean fileClosed;
+
+    private final AtomicLong evictionCount;
+    private final AtomicLong expirationCount;
+    private final AtomicLong suppressedCount;
+    private final Logger logger;
+
+    StickyEventStore(EventBusBuilder builder, Logger logger) {
+        this.logger = logger;
+        executorService = builder.executorService;
+        stickyEvents = new ConcurrentHashMap<Class<?>, StickyEntry>();
+        stickyTypesBySupertype = new ConcurrentHashMap<Class<?>, Set<Class<?>>>();
+        versionCounter = new AtomicLong();
+        maxEntries = builder.maxStickyEvents;
+        maxSize = builder.maxStickyEventsSize;
+        sizeEstimator = builder.stickyEventSizeEstimator;
+        currentSize = new AtomicLong();
+        bounded = maxEntries > 0 || maxSize > 0;
+        accessOrder = bounded ? new LinkedHashMap<Class<?>, Boolean>(16, 0.75f, true) : null;
+        timeToLiveConfig = builder.stickyEventTimeToLive != null ? new HashMap<Class<?>, Long>(
+                builder.stickyEventTimeToLive) : null;
+        timeToLiveByEventType = new ConcurrentHashMap<Class<?>, Long>();
+        keyedStickyEvents = new ConcurrentHashMap<Class<?>, KeyedStickyEvents>();
+        keyedTypesBySupertype = new ConcurrentHashMap<Class<?>, Set<Class<?>>>();
+        maxKeyedEventsPerType = builder.maxKeyedStickyEventsPerType;
+        distinctEventTypes = builder.distinctStickyEventTypes != null ? new HashMap<Class<?>, Comparator<?>>(
+                builder.distinctStickyEventTypes) : null;
+        evictionCount = new AtomicLong();
+        expirationCount = new AtomicLong();
+        suppressedCount = new AtomicLong();
+        if (builder.stickyEventSerializers != null) {
+            if (builder.stickyEventFile == null) {
+                throw new EventBusException("Persistent sticky events require a sticky event file");
+            }
+            serializers = new HashMap<Class<?>, StickyEventSerializer<Object>>();
+            for (Map.Entry<Class<?>, StickyEventSerializer<?>> entry : builder.stickyEventSerializers.entrySet()) {
+                @SuppressWarnings("unchecked")
+                StickyEventSerializer<Object> serializer = (StickyEventSerializer<Object>) entry.getValue();
+                serializers.put(entry.getKey(), serializer);
+            }
+            Set<String> typeNames = new HashSet<String>();
+            for (Class<?> eventType : serializers.keySet()) {
+                typeNames.add(eventType.getName());
+            }
+            try {
+                stickyEventFile = new StickyEventFile(builder.stickyEventFile, builder.stickyEventFileCapacity,
+                        typeNames);
+            } catch (IOException e) {
+                throw new EventBusException("Could not open sticky event file " + builder.stickyEventFile, e);
+            }
+            pendingRestore = new ConcurrentHashMap<Class<?>, byte[]>();
+            unpersistedTypes = new ConcurrentHashMap<Class<?>, Boolean>();
+            persistScheduled = new AtomicBoolean();
+            persistTask = new Runnable() {
+                @Override
+                public void run() {
+                    persistScheduled.set(false);
+                    flush();
+                }
+            };
+            Map<String, byte[]> records = stickyEventFile.getRecords();
+            for (Class<?> eventType : serializers.keySet()) {
+                byte[] data = records.get(eventType.getName());
+                if (data != null) {
+                    pendingRestore.put(eventType, data);
+                    indexType(stickyTypesBySupertype, eventType);
+                }
+            }
+        } else {
+            stickyEventFile = null;
+            serializers = null;
+            pendingRestore = null;
+            unpersistedTypes = null;
+            persistScheduled = null;
+            persistTask = null;
+        }
+    }
+
+    /** Returns the versioned sticky event of the given type, or null if there is none or it has expired. */
+    VersionedEvent<Object> get(Class<?> eventType) {
+        StickyEntry entry = getLiveEntry(eventType);
+        return entry != null ? entry.versioned : null;
+    }
+
+    Object getEvent(Class<?> eventType) {
+        StickyEntry entry = getLiveEntry(eventType);
+        return entry != null ? entry.versioned.event : null;
+    }
+
+    //存储sticky事件,替换同类型的旧事件
+    void put(Object event) {
+        Class<?> eventType = event.getClass();
+        StickyEntry entry = newEntry(event);
+        if (pendingRestore != null) {
+            pendingRestore.remove(eventType);
+        }
+        StickyEntry previous = stickyEvents.put(eventType, entry);
+        onStored(eventType, previous, entry);
+    }
+
+    /**
+     * Stores the event unless its type is configured as distinct and the event equals the current sticky event.
+     *
+     * @return false if the event was suppressed.
+     */
+    boolean putIfChanged(Object event) {
+        Class<?> eventType = event.getClass();
+        if (distinctEventTypes == null || !distinctEventTypes.containsKey(eventType)) {
+            put(event);
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Comparator<Object> comparator = (Comparator<Object>) distinctEventTypes.get(eventType);
+        StickyEntry updated = newEntry(event);
+        //循环进行比较和替换,保证并发存储相同的事件时只有一个会成功
+        while (true) {
+            StickyEntry current = getLiveEntry(eventType);
+            if (current != null) {
+                Object currentEvent = current.versioned.event;
+                if (comparator != null ? comparator.compare(currentEvent, event) == 0 : currentEvent.equals(event)) {
+                    suppressedCount.incrementAndGet();
+                    return false;
+                }
+                if (stickyEvents.replace(eventType, current, updated)) {
+                    onStored(eventType, current, updated);
+                    return true;
+                }
+            } else if (stickyEvents.putIfAbsent(eventType, updated) == null) {
+                onStored(eventType, null, updated);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Stores the update if the current sticky event of its type is the expected one (compared by identity). A null
+     * expected event means that no sticky event of the type must be present.
+     */
+    boolean compareAndSet(Object expected, Object update) {
+        Class<?> eventType = update.getClass();
+        if (expected != null && expected.getClass() != eventType) {
+            throw new EventBusException("Expected event type " + expected.getClass() + " does not match " + eventType);
+        }
+        StickyEntry current = getLiveEntry(eventType);
+        StickyEntry updated = newEntry(update);
+        if (expected == null) {
+            if (current != null || stickyEvents.putIfAbsent(eventType, updated) != null) {
+                return false;
+            }
+        } else if (current == null || current.versioned.event != expected
+                || !stickyEvents.replace(eventType, current, updated)) {
+            return false;
+        }
+        onStored(eventType, current, updated);
+        return true;
+    }
+
+    Object remove(Class<?> eventType) {
+        if (pendingRestore != null) {
+            //持久化的事件还没有恢复时先进行恢复,以便返回被移除的事件
+            getLiveEntry(eventType);
+        }
+        StickyEntry removed = stickyEvents.remove(eventType);
+        if (removed != null) {
+            onRemoved(eventType, removed);
+            return removed.isExpired(SystemClock.elapsedRealtime()) ? null : removed.versioned.event;
+        }
+        return null;
+    }
+
+    //如果当前的sticky事件与给定的事件相等则将其移除
+    boolean remove(Object event) {
+        Class<?> eventType = event.getClass();
+        StickyEntry current = getLiveEntry(eventType);
+        if (current != null && event.equals(current.versioned.event) && stickyEvents.remove(eventType, current)) {
+            onRemoved(eventType, current);
+            return true;
+        }
+        return false;
+    }
+
+    void clear() {
+        for (Class<?> eventType : stickyEvents.keySet()) {
+            remove(eventType);
+        }
+        for (KeyedStickyEvents keyedEvents : keyedStickyEvents.values()) {
+            keyedEvents.clear();
+        }
+        if (pendingRestore != null) {
+            for (Class<?> eventType : pendingRestore.keySet()) {
+                if (pendingRestore.remove(eventType) != null) {
+                    unindexType(eventType);
+                    persist(eventType);
+                }
+            }
+        }
+    }
+
+    //存储按键区分的sticky事件,替换同类型同键的旧事件
+    void putKeyed(Object key, Object event) {
+        Class<?> eventType = event.getClass();
+        KeyedStickyEvents keyedEvents = keyedStickyEvents.get(eventType);
+        if (keyedEvents == null) {
+            keyedEvents = new KeyedStickyEvents(maxKeyedEventsPerType);
+            KeyedStickyEvents existing = keyedStickyEvents.putIfAbsent(eventType, keyedEvents);
+            if (existing != null) {
+                keyedEvents = existing;
+            } else {
+                indexType(keyedTypesBySupertype, eventType);
+            }
+        }
+        int evicted = keyedEvents.put(key, event);
+        if (evicted > 0) {
+            evictionCount.addAndGet(evicted);
+        }
+    }
+
+    Object getKeyed(Class<?> eventType, Object key) {
+        KeyedStickyEvents keyedEvents = keyedStickyEvents.get(eventType);
+        return keyedEvents != null ? keyedEvents.get(key) : null;
+    }
+
+    /** Returns a snapshot of all keyed sticky events of exactly the given type (or null if there are none). */
+    Map<Object, Object> getKeyedEvents(Class<?> eventType) {
+        KeyedStickyEvents keyedEvents = keyedStickyEvents.get(eventType);
+        return keyedEvents != null ? keyedEvents.snapshot() : null;
+    }
+
+    Object removeKeyed(Class<?> eventType, Object key) {
+        KeyedStickyEvents keyedEvents = keyedStickyEvents.get(eventType);
+        return keyedEvents != null ? keyedEvents.remove(key) : null;
+    }
+
+    /** Returns all types which had keyed sticky events and are assignable to the given type (or null). */
+    Set<Class<?>> getKeyedAssignableTypes(Class<?> eventType) {
+        return keyedTypesBySupertype.get(eventType);
+    }
+
+    /** Returns the types of all stored sticky events, which are assignable to the given type (or null). */
+    Set<Class<?>> getAssignableTypes(Class<?> eventType) {
+        return stickyTypesBySupertype.get(eventType);
+    }
+
+    long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    long getExpirationCount() {
+        return expirationCount.get();
+    }
+
+    long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    //获取未过期的存储项,过期的存储项会被移除
+    private StickyEntry getLiveEntry(Class<?> eventType) {
+        StickyEntry entry = stickyEvents.get(eventType);
+        if (entry == null) {
+            if (pendingRestore == null || (entry = restore(eventType)) == null) {
+                return null;
+            }
+        }
+        //uptimeMillis在深度睡眠时停止,存活时间使用包含睡眠时间的elapsedRealtime
+        if (entry.isExpired(SystemClock.elapsedRealtime())) {
+            if (stickyEvents.remove(eventType, entry)) {
+                expirationCount.incrementAndGet();
+                onRemoved(eventType, entry);
+            }
+            return null;
+        }
+        if (bounded) {
+            touch(eventType);
+        }
+        return entry;
+    }
+
+    //反序列化从文件中读取的sticky事件并存储
+    private StickyEntry restore(Class<?> eventType) {
+        byte[] data = pendingRestore.remove(eventType);
+        if (data == null) {
+            return stickyEvents.get(eventType);
+        }
+        Object event = deserialize(eventType, data);
+        if (event == null) {
+            //无法反序列化的记录被丢弃,并从文件中移除,避免每次启动都失败
+            unindexType(eventType);
+            persist(eventType);
+            return stickyEvents.get(eventType);
+        }
+        StickyEntry restored = newEntry(event);
+        StickyEntry existing = stickyEvents.putIfAbsent(eventType, restored);
+        if (existing != null) {
+            return existing;
+        }
+        if (bounded) {
+            currentSize.addAndGet(restored.size);
+            touch(eventType);
+            evictIfNeeded();
+        }
+        return restored;
+    }
+
+    //反序列化失败时输出日志并返回null
+    private Object deserialize(Class<?> eventType, byte[] data) {
+        try {
+            Object event = serializers.get(eventType).deserialize(data);
+            if (event == null) {
+                logger.log(Logger.Level.ERROR, "Serializer restored null for sticky event {}, dropping it", eventType);
+            }
+            return event;
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.ERROR, "Could not restore sticky event {}, dropping it", eventType, e);
+            return null;
+        }
+    }
+
+    //记录需要写入文件的事件类型,在线程池中进行序列化和写入,不阻塞发送sticky事件的线程
+    private void persist(Class<?> eventType) {
+        if (serializers == null || fileClosed || !serializers.containsKey(eventType)) {
+            return;
+        }
+        unpersistedTypes.put(eventType, Boolean.TRUE);
+        if (persistScheduled.compareAndSet(false, true)) {
+            executorService.execute(persistTask);
+        }
+    }
+
+    /** Writes the current sticky event of each changed persistent type to the file; returns when all are written. */
+    void flush() {
+        if (stickyEventFile == null) {
+            return;
+        }
+        //在文件的锁中移除并写入事件类型,返回时其他线程已经移除的类型也一定写入完成
+        synchronized (stickyEventFile) {
+            for (Class<?> eventType : unpersistedTypes.keySet()) {
+                if (unpersistedTypes.remove(eventType) != null && !fileClosed) {
+                    write(eventType);
+                }
+            }
+        }
+    }
+
+    /** Writes all changes and closes the file; later changes of persistent sticky events are not written. */
+    void close() {
+        if (stickyEventFile == null) {
+            return;
+        }
+        synchronized (stickyEventFile) {
+            flush();
+            fileClosed = true;
+            try {
+                stickyEventFile.close();
+            } catch (IOException e) {
+                logger.log(Logger.Level.ERROR, "Could not close sticky event file", e);
+            }
+        }
+    }
+
+    // Must be called in synchronized block
+    //将事件类型当前的sticky事件写入文件
+    private void write(Class<?> eventType) {
+        StickyEntry entry = stickyEvents.get(eventType);
+        try {
+            byte[] data = entry != null ? serializers.get(eventType).serialize(entry.versioned.event) : null;
+            stickyEventFile.write(eventType.getName(), data);
+        } catch (IOException e) {
+            logger.log(Logger.Level.ERROR, "Could not persist sticky event {}", eventType, e);
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.ERROR, "Could not serialize sticky event {}", eventType, e);
+        }
+    }
+
+    private StickyEntry newEntry(Object event) {
+        long size = sizeEstimator != null ? sizeEstimator.estimateSize(event) : 0;
+        long timeToLive = getTimeToLive(event.getClass());
+        long expiresAt = timeToLive > 0 ? SystemClock.elapsedRealtime() + timeToLive : Long.MAX_VALUE;
+        return new StickyEntry(new VersionedEvent<Object>(event, versionCounter.incrementAndGet()), size, expiresAt);
+    }
+
+    //获取事件类型的存活时间:使用继承关系中第一个配置了存活时间的类型,结果进行缓存
+    private long getTimeToLive(Class<?> eventType) {
+        if (timeToLiveConfig == null) {
+            return 0;
+        }
+        Long timeToLive = timeToLiveByEventType.get(eventType);
+        if (timeToLive == null) {
+            timeToLive = 0L;
+            List<Class<?>> supertypes = EventBus.lookupAllEventTypes(eventType);
+            for (int i = 0; i < supertypes.size(); i++) {
+                Long configured = timeToLiveConfig.get(supertypes.get(i));
+                if (configured != null) {
+                    timeToLive = configured;
+                    break;
+                }
+            }
+            timeToLiveByEventType.put(eventType, timeToLive);
+        }
+        return timeToLive;
+    }
+
+    private void onStored(Class<?> eventType, StickyEntry previous, StickyEntry stored) {
+        if (previous == null) {
+            indexType(stickyTypesBySupertype, eventType);
+        }
+        if (bounded) {
+            currentSize.addAndGet(stored.size - (previous != null ? previous.size : 0));
+            touch(eventType);
+            evictIfNeeded();
+        }
+        persist(eventType);
+    }
+
+    private void onRemoved(Class<?> eventType, StickyEntry removed) {
+        unindexType(eventType);
+        if (bounded) {
+            currentSize.addAndGet(-removed.size);
+            synchronized (accessOrder) {
+                accessOrder.remove(eventType);
+            }
+            // A concurrent put may have stored this type again; it must stay in the access order to be evicted
+            if (stickyEvents.containsKey(eventType)) {
+                touch(eventType);
+            }
+        }
+        persist(eventType);
+    }
+
+    //将事件类型移到访问顺序的末尾(最近使用)
+    private void touch(Class<?> eventType) {
+        synchronized (accessOrder) {
+            accessOrder.put(eventType, Boolean.TRUE);
+        }
+    }
+
+    //超出限制时淘汰最近最少使用的sticky事件
+    private void evictIfNeeded() {
+        while ((maxEntries > 0 && stickyEvents.size() > maxEntries) || (maxSize > 0 && currentSize.get() > maxSize)) {
+            Class<?> eldestType;
+            synchronized (accessOrder) {
+                Iterator<Class<?>> iterator = accessOrder.keySet().iterator();
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                eldestType = iterator.next();
+            }
+            StickyEntry eldest = stickyEvents.get(eldestType);
+            if (eldest == null) {
+                //已经被其他线程移除
+                synchronized (accessOrder) {
+                    accessOrder.remove(eldestType);
+                }
+            } else if (stickyEvents.remove(eldestType, eldest)) {
+                evictionCount.incrementAndGet();
+                onRemoved(eldestType, eldest);
+            }
+        }
+    }
+
+    //将sticky事件类型添加到其所有父类和接口的索引中
+    private static void indexType(ConcurrentHashMap<Class<?>, Set<Class<?>>> typesBySupertype, Class<?> stickyType) {
+        List<Class<?>> supertypes = EventBus.lookupAllEventTypes(stickyType);
+        for (int i = 0; i < supertypes.size(); i++) {
+            Class<?> supertype = supertypes.get(i);
+            Set<Class<?>> stickyTypes = typesBySupertype.get(supertype);
+            if (stickyTypes == null) {
+                stickyTypes = new CopyOnWriteArraySet<Class<?>>();
+                Set<Class<?>> existing = typesBySupertype.putIfAbsent(supertype, stickyTypes);
+                if (existing != null) {
+                    stickyTypes = existing;
+                }
+            }
+            stickyTypes.add(stickyType);
+        }
+    }
+
+    //将sticky事件类型从其所有父类和接口的索引中移除
+    private void unindexType(Class<?> stickyType) {
+        List<Class<?>> supertypes = EventBus.lookupAllEventTypes(stickyType);
+        for (int i = 0; i < supertypes.size(); i++) {
+            Set<Class<?>> stickyTypes = stickyTypesBySupertype.get(supertypes.get(i));
+            if (stickyTypes != null) {
+                stickyTypes.remove(stickyType);
+            }
+        }
+        // A concurrent put may have stored this type again after we removed it; the index may contain stale types,
+        // but must never miss a stored one
+        if (stickyEvents.containsKey(stickyType)) {
+            indexType(stickyTypesBySupertype, stickyType);
+        }
+    }
+
+    //一个sticky事件的存储项
+    private static final class StickyEntry {
+        final VersionedEvent<Object> versioned;
+        final long size;
+        //过期的时间点,不会过期时为Long.MAX_VALUE
+        final long expiresAt;
+
+        StickyEntry(VersionedEvent<Object> versioned, long size, long expiresAt) {
+            this.versioned = versioned;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package de.greenrobot.event;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicates subscriber exceptions by subscription (subscriber and method) and exception class within a time window.
+ * Only the first occurrence per window is reported in full; repeated occurrences are counted without locking and
+ * reported once per window on the {@link SharedScheduler}. The EventBus is only referenced weakly.
+ */
+final class SubscriberExceptionAggregator implements Runnable {
+
+    private final WeakReference<EventBus> eventBusReference;
+    private final long windowMillis;
+    //每隔多少次重复的异常输出一次堆栈,0表示重复的异常不输出
+    private final int stackTraceSampleEvery;
+    //订阅信息和异常类型 -> 当前周期内出现的次数;周期内没有出现的项在汇总时删除
+    private final ConcurrentHashMap<Key, AtomicLong> counts;
+    private volatile ScheduledFuture<?> future;
+
+    SubscriberExceptionAggregator(EventBus eventBus, long windowMillis, int stackTraceSampleEvery) {
+        eventBusReference = new WeakReference<EventBus>(eventBus);
+        this.windowMillis = windowMillis;
+        this.stackTraceSampleEvery = stackTraceSampleEvery;
+        counts = new ConcurrentHashMap<Key, AtomicLong>();
+    }
+
+    void start() {
+        future = SharedScheduler.get().scheduleAtFixedRate(this, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Counts the exception and returns its occurrence number within the current window, starting with 1. */
+    long count(Subscription subscription, Throwable throwable) {
+        Key key = new Key(subscription, throwable != null ? throwable.getClass() : null);
+        AtomicLong count = counts.get(key);
+        if (count == null) {
+            count = new AtomicLong();
+            AtomicLong existing = counts.putIfAbsent(key, count);
+            if (existing != null) {
+                count = existing;
+            }
+        }
+        return count.incrementAndGet();
+    }
+
+    /** Returns true if the stack trace of a repeated exception with the given occurrence number should be logged. */
+    boolean isSampled(long occurrence) {
+        return stackTraceSampleEvery > 0 && (occurrence - 1) % stackTraceSampleEvery == 0;
+    }
+
+    /** Returns the repeated (not fully reported) exceptions since the last call and resets the counts. */
+    List<SubscriberExceptionSummaryEvent.Entry> drain() {
+        List<SubscriberExceptionSummaryEvent.Entry> entries = new ArrayList<SubscriberExceptionSummaryEvent.Entry>();
+        for (Map.Entry<Key, AtomicLong> entry : counts.entrySet()) {
+            long count = entry.getValue().getAndSet(0);
+            if (count == 0) {
+            	//上个周期内没有出现,删除后不再持有订阅信息;并发计数的项会被当作新的异常完整报告
+                counts.remove(entry.getKey(), entry.getValue());
+            } else if (count > 1) {
+                Key key = entry.getKey();
+                entries.add(new SubscriberExceptionSummaryEvent.Entry(key.subscription.subscriberMethod.method,
+                        key.exceptionClass, count - 1));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void run() {
+        EventBus eventBus = eventBusReference.get();
+        if (eventBus == null) {
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            return;
+        }
+        List<SubscriberExceptionSummaryEvent.Entry> entries = drain();
+        if (!entries.isEmpty()) {
+            eventBus.reportSubscriberExceptionSummary(entries, windowMillis);
+        }
+    }
+
+    private static final class Key {
+        final Subscription subscription;
+        final Class<? extends Throwable> exceptionClass;
+
+        Key(Subscription subscription, Class<? extends Throwable> exceptionClass) {
+            this.subscription = subscription;
+            this.exceptionClass = exceptionClass;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Key) {
+                Key otherKey = (Key) other;
+                return subscription == otherKey.subscription && exceptionClass == otherKey.exceptionClass;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * subscription.hashCode() + (exceptionClass != null ? exceptionClass.hashCode() : 0);
+        }
+    }
+
+}
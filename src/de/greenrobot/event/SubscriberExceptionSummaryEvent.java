@@ -0,0 +1,50 @@
+package de.greenrobot.event;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * This Event is posted periodically by EventBus if subscriber exceptions are aggregated using
+ * {@link EventBusBuilder#aggregateSubscriberExceptions(long, int)}. It counts the repeated exceptions, for which no
+ * {@link SubscriberExceptionEvent} was posted.
+ */
+public final class SubscriberExceptionSummaryEvent {
+    /** The {@link EventBus} instance to with the original events were posted to. */
+    public final EventBus eventBus;
+
+    /** Repeated exceptions by subscriber method and exception class. */
+    public final List<Entry> entries;
+
+    /** The aggregation window in milliseconds. */
+    public final long windowMillis;
+
+    public SubscriberExceptionSummaryEvent(EventBus eventBus, List<Entry> entries, long windowMillis) {
+        this.eventBus = eventBus;
+        this.entries = entries;
+        this.windowMillis = windowMillis;
+    }
+
+    public static final class Entry {
+        /** The subscriber method that threw the exceptions. */
+        public final Method subscriberMethod;
+
+        /** The class of the exceptions thrown. */
+        public final Class<? extends Throwable> exceptionClass;
+
+        /** Number of repeated exceptions during the window. */
+        public final long count;
+
+        public Entry(Method subscriberMethod, Class<? extends Throwable> exceptionClass, long count) {
+            this.subscriberMethod = subscriberMethod;
+            this.exceptionClass = exceptionClass;
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return subscriberMethod.getDeclaringClass().getName() + "." + subscriberMethod.getName() + ": "
+                    + (exceptionClass != null ? exceptionClass.getName() : null) + " x" + count;
+        }
+    }
+
+}
@@ -1,7 +1,5 @@
 package de.greenrobot.event;
 
-import android.util.Log;
-
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -31,9 +29,11 @@ class SubscriberMethodFinder {
     private static final Map<Class<?>, List<SubscriberMethod>> methodCache = new HashMap<Class<?>, List<SubscriberMethod>>();
     //集合对象,用于存储EventBus对象中需要排除的过滤类-------->这个集合是属于对象的------------>注意本集合并不是那么用的,它只是在出现检测订阅方法出现错误时才使用的
     private final Map<Class<?>, Class<?>> skipMethodVerificationForClasses;
+    private final Logger logger;
 
     //创建订阅方法过滤器对象的构造函数------>此处能够告诉过滤器对象对那些订阅对象的类不进行过滤处理
-    SubscriberMethodFinder(List<Class<?>> skipMethodVerificationForClassesList) {
+    SubscriberMethodFinder(List<Class<?>> skipMethodVerificationForClassesList, Logger logger) {
+        this.logger = logger;
     	//创建集合用于存储需要排除检测的类
         skipMethodVerificationForClasses = new ConcurrentHashMap<Class<?>, Class<?>>();
         //判断当前EventBus对象中是否设置了排除检测的类
@@ -151,7 +151,8 @@ class SubscriberMethodFinder {
                         }
                     }
                 } else if (!skipMethodVerificationForClasses.containsKey(methodClass)) {
-                    Log.d(EventBus.TAG, "Skipping method (not public, static or abstract): " + methodClass + "." + methodName);
+                    logger.log(Logger.Level.DEBUG, "Skipping method (not public, static or abstract): {}.{}", methodClass,
+                            methodName);
                 }
             }
         }
@@ -174,6 +175,9 @@ class SubscriberMethodFinder {
         } else if (modifierString.equals("Async")) {
         	//
             threadMode = ThreadMode.Async;
+        } else if (modifierString.equals("Mailbox")) {
+        	//每个订阅对象按顺序在自己的邮箱中处理
+            threadMode = ThreadMode.Mailbox;
         } else {
         	//方法出现错误的处理----------->判断本方法是否在排除的处理类中---->没有时会抛出异常错误
             if (!skipMethodVerificationForClasses.containsKey(clazz)) {
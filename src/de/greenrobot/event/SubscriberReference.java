@@ -0,0 +1,37 @@
+package de.greenrobot.event;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Weak reference to a subscriber registered with {@link EventBus#registerWeak(Object)}. Equality is based on the
+ * identity of the referenced subscriber, so a temporary reference can be used to look up a registered one.
+ */
+final class SubscriberReference extends WeakReference<Object> {
+
+    //订阅对象的identity hash,在引用被清除后依然可用
+    private final int hashCode;
+
+    SubscriberReference(Object subscriber, ReferenceQueue<Object> queue) {
+        super(subscriber, queue);
+        hashCode = System.identityHashCode(subscriber);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof SubscriberReference) {
+            Object subscriber = get();
+            return subscriber != null && subscriber == ((SubscriberReference) other).get();
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+}
@@ -0,0 +1,28 @@
+package de.greenrobot.event;
+
+/**
+ * Describes a registered subscriber, see {@link EventBus#getSubscribersRegisteredLongerThan(long)}. Does not reference
+ * the subscriber itself to avoid keeping it alive.
+ */
+public final class SubscriberRegistration {
+    /** The class of the registered subscriber. */
+    public final Class<?> subscriberClass;
+
+    /** True if the subscriber was registered with {@link EventBus#registerWeak(Object)}. */
+    public final boolean weak;
+
+    /** Time in milliseconds since the subscriber was registered. */
+    public final long registeredMillis;
+
+    public SubscriberRegistration(Class<?> subscriberClass, boolean weak, long registeredMillis) {
+        this.subscriberClass = subscriberClass;
+        this.weak = weak;
+        this.registeredMillis = registeredMillis;
+    }
+
+    @Override
+    public String toString() {
+        return subscriberClass.getName() + (weak ? " (weak)" : "") + " registered for " + registeredMillis + "ms";
+    }
+
+}
@@ -0,0 +1,197 @@
+package de.greenrobot.event;
+
+import android.os.SystemClock;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Watches subscriber invocations for exceeding the budget of their thread mode. Each thread records its running
+ * invocations in its own slot without locking or allocation; the {@link SharedScheduler} samples all slots
+ * periodically and captures the stack of threads still running a slow invocation. Invocations finishing over budget
+ * before being sampled are reported without a stack trace.
+ */
+final class SubscriberWatchdog implements Runnable {
+
+    private final WeakReference<EventBus> eventBusReference;
+    //每种线程模式的时间预算,0表示不监控
+    private final long[] budgetMillisByThreadMode;
+    private final long sampleIntervalMillis;
+    //所有进行过监控的线程的记录槽,线程结束后在采样时删除
+    private final CopyOnWriteArrayList<Slot> slots;
+    private final ThreadLocal<Slot> currentSlot;
+    private volatile ScheduledFuture<?> future;
+
+    SubscriberWatchdog(EventBus eventBus, long[] budgetMillisByThreadMode) {
+        eventBusReference = new WeakReference<EventBus>(eventBus);
+        this.budgetMillisByThreadMode = budgetMillisByThreadMode.clone();
+        long minBudget = Long.MAX_VALUE;
+        for (long budget : budgetMillisByThreadMode) {
+            if (budget > 0) {
+                minBudget = Math.min(minBudget, budget);
+            }
+        }
+        sampleIntervalMillis = Math.max(1, minBudget / 2);
+        slots = new CopyOnWriteArrayList<Slot>();
+        currentSlot = new ThreadLocal<Slot>() {
+            @Override
+            protected Slot initialValue() {
+                Slot slot = new Slot(Thread.currentThread());
+                slots.add(slot);
+                return slot;
+            }
+        };
+    }
+
+    void start() {
+        future = SharedScheduler.get().scheduleAtFixedRate(this, sampleIntervalMillis, sampleIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /** Records the start of an invocation; returns null if the thread mode is not watched. */
+    Invocation begin(Subscription subscription, Class<?> eventType, ThreadMode threadMode) {
+        long budget = budgetMillisByThreadMode[threadMode.ordinal()];
+        if (budget == 0) {
+            return null;
+        }
+        Slot slot = currentSlot.get();
+        Invocation invocation = slot.push();
+        invocation.sequence++;
+        invocation.subscription = subscription;
+        invocation.eventType = eventType;
+        invocation.threadMode = threadMode;
+        invocation.budgetMillis = budget;
+        invocation.reported = 0;
+        invocation.startedAt = SystemClock.uptimeMillis();
+        invocation.sequence++;
+        slot.current = invocation;
+        return invocation;
+    }
+
+    /** Records the end of an invocation; reports it if it exceeded its budget and was not sampled yet. */
+    void end(Invocation invocation) {
+        long elapsed = SystemClock.uptimeMillis() - invocation.startedAt;
+        if (elapsed > invocation.budgetMillis && Invocation.REPORTED.compareAndSet(invocation, 0, 1)) {
+            report(invocation, elapsed, null);
+        }
+        Slot slot = invocation.slot;
+        invocation.sequence++;
+        invocation.subscription = null;
+        invocation.eventType = null;
+        invocation.sequence++;
+        slot.current = slot.pop();
+    }
+
+    @Override
+    public void run() {
+        if (eventBusReference.get() == null) {
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        for (Slot slot : slots) {
+            if (!slot.thread.isAlive()) {
+                slots.remove(slot);
+                continue;
+            }
+            Invocation invocation = slot.current;
+            if (invocation == null) {
+                continue;
+            }
+            //读取时使用序号检查:序号为奇数或前后不一致时,调用已经结束或正在被修改
+            long sequence = invocation.sequence;
+            if ((sequence & 1) != 0 || invocation.reported != 0) {
+                continue;
+            }
+            Subscription subscription = invocation.subscription;
+            Class<?> eventType = invocation.eventType;
+            ThreadMode threadMode = invocation.threadMode;
+            long budget = invocation.budgetMillis;
+            long elapsed = now - invocation.startedAt;
+            if (subscription == null || elapsed <= budget) {
+                continue;
+            }
+            StackTraceElement[] stackTrace = slot.thread.getStackTrace();
+            if (invocation.sequence == sequence && slot.current == invocation
+                    && Invocation.REPORTED.compareAndSet(invocation, 0, 1)) {
+                report(subscription, eventType, threadMode, budget, elapsed, slot.thread.getName(), stackTrace);
+            }
+        }
+    }
+
+    private void report(Invocation invocation, long elapsed, StackTraceElement[] stackTrace) {
+        report(invocation.subscription, invocation.eventType, invocation.threadMode, invocation.budgetMillis, elapsed,
+                Thread.currentThread().getName(), stackTrace);
+    }
+
+    private void report(Subscription subscription, Class<?> eventType, ThreadMode threadMode, long budget,
+            long elapsed, String threadName, StackTraceElement[] stackTrace) {
+        EventBus eventBus = eventBusReference.get();
+        if (eventBus != null) {
+            Object subscriber = subscription.getSubscriber();
+            eventBus.reportSlowSubscriber(new SlowSubscriberEvent(eventBus,
+                    subscriber != null ? subscriber.getClass() : null, subscription.subscriberMethod.method,
+                    eventType, threadMode, budget, elapsed, threadName, stackTrace));
+        }
+    }
+
+    //每个线程一个记录槽;订阅方法中同步发送事件时调用会嵌套,因此按深度复用调用记录
+    private static final class Slot {
+        final Thread thread;
+        volatile Invocation current;
+        private Invocation[] invocations = new Invocation[4];
+        private int depth;
+
+        Slot(Thread thread) {
+            this.thread = thread;
+        }
+
+        Invocation push() {
+            if (depth == invocations.length) {
+                Invocation[] grown = new Invocation[depth * 2];
+                System.arraycopy(invocations, 0, grown, 0, depth);
+                invocations = grown;
+            }
+            Invocation invocation = invocations[depth];
+            if (invocation == null) {
+                invocation = new Invocation(this);
+                invocations[depth] = invocation;
+            }
+            depth++;
+            return invocation;
+        }
+
+        /** Removes the top invocation and returns the one below, or null. */
+        Invocation pop() {
+            depth--;
+            return depth > 0 ? invocations[depth - 1] : null;
+        }
+    }
+
+    static final class Invocation {
+        //超时只报告一次:调用线程和采样线程通过CAS决定由谁报告
+        static final AtomicIntegerFieldUpdater<Invocation> REPORTED = AtomicIntegerFieldUpdater.newUpdater(
+                Invocation.class, "reported");
+
+        final Slot slot;
+        //修改字段时为奇数
+        volatile long sequence;
+        Subscription subscription;
+        Class<?> eventType;
+        ThreadMode threadMode;
+        long budgetMillis;
+        long startedAt;
+        volatile int reported;
+
+        Invocation(Slot slot) {
+            this.slot = slot;
+        }
+    }
+
+}
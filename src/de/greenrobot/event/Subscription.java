@@ -1,32 +1,66 @@
 package de.greenrobot.event;
 
+import android.os.SystemClock;
+
 final class Subscription {
 	
-	//订阅对象
-    final Object subscriber;
+	//订阅对象------>使用弱引用注册时为null
+    private final Object subscriber;
+    //订阅对象的弱引用------>使用强引用注册时为null
+    final SubscriberReference subscriberReference;
     //订阅对象中的一个订阅方法
     final SubscriberMethod subscriberMethod;
     //本订阅方法的优先级别
     final int priority;
+    //注册时的时间,用于查找注册时间过长的订阅对象
+    final long registeredAt;
+    //断路器,没有启用时为null
+    final CircuitBreaker circuitBreaker;
+    //失败时的重试策略,没有配置时为null
+    final RetryPolicy retryPolicy;
+    //慢的时候转移到后台执行的通道,只有声明可以异步处理的PostThread订阅方法才有
+    final AdaptiveLane adaptiveLane;
+    //订阅对象的邮箱,同一个订阅对象的所有订阅信息共用;不使用Mailbox模式时为null
+    final Mailbox mailbox;
+    //是否是消费者组的成员:成员不注册到EventBus,重试总是在后台线程中进行
+    final boolean groupMember;
     
     /**
      * Becomes false as soon as {@link EventBus#unregister(Object)} is called, which is checked by queued event delivery
      * {@link EventBus#invokeSubscriber(PendingPost)} to prevent race conditions.
      */
     volatile boolean active;
+    //预先计算的hash值:订阅对象使用identity hash,不调用订阅者自身的hashCode
+    private final int hashCode;
 
-    Subscription(Object subscriber, SubscriberMethod subscriberMethod, int priority) {
-        this.subscriber = subscriber;
+    Subscription(Object subscriber, SubscriberReference subscriberReference, SubscriberMethod subscriberMethod,
+            int priority, CircuitBreaker circuitBreaker, RetryPolicy retryPolicy,
+            AdaptiveLane adaptiveLane, Mailbox mailbox, boolean groupMember) {
+        this.subscriber = subscriberReference == null ? subscriber : null;
+        this.subscriberReference = subscriberReference;
         this.subscriberMethod = subscriberMethod;
         this.priority = priority;
+        this.circuitBreaker = circuitBreaker;
+        this.retryPolicy = retryPolicy;
+        this.adaptiveLane = adaptiveLane;
+        this.mailbox = mailbox;
+        this.groupMember = groupMember;
+        registeredAt = SystemClock.uptimeMillis();
         active = true;
+        hashCode = 31 * System.identityHashCode(subscriber) + subscriberMethod.hashCode();
+    }
+
+    /** Returns the subscriber, or null if a weakly referenced subscriber was garbage collected. */
+    Object getSubscriber() {
+        return subscriberReference == null ? subscriber : subscriberReference.get();
     }
 
     @Override
     public boolean equals(Object other) {
         if (other instanceof Subscription) {
             Subscription otherSubscription = (Subscription) other;
-            return subscriber == otherSubscription.subscriber && subscriberMethod.equals(otherSubscription.subscriberMethod);
+            return getSubscriber() == otherSubscription.getSubscriber()
+                    && subscriberMethod.equals(otherSubscription.subscriberMethod);
         } else {
             return false;
         }
@@ -34,6 +68,6 @@ final class Subscription {
 
     @Override
     public int hashCode() {
-        return subscriber.hashCode() + subscriberMethod.methodString.hashCode();
+        return hashCode;
     }
 }
\ No newline at end of file
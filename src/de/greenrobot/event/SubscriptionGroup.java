@@ -0,0 +1,51 @@
+package de.greenrobot.event;
+
+/**
+ * A fixed set of subscribers, which is registered and unregistered as a whole, e.g. all subscribers belonging to one
+ * screen. Registering and unregistering is atomic and rebuilds the subscription list of each affected event type only
+ * once.
+ *
+ * @see EventBus#createSubscriptionGroup(Object...)
+ */
+public final class SubscriptionGroup {
+
+    private final EventBus eventBus;
+    //本组中的订阅对象
+    private final Object[] subscribers;
+
+    SubscriptionGroup(EventBus eventBus, Object[] subscribers) {
+        if (subscribers.length == 0) {
+            throw new EventBusException("A subscription group needs at least one subscriber");
+        }
+        this.eventBus = eventBus;
+        this.subscribers = subscribers.clone();
+    }
+
+    /** Registers all subscribers of this group, see {@link EventBus#registerAll(Object...)}. */
+    public void register() {
+        eventBus.registerAll(subscribers);
+    }
+
+    /** Registers all subscribers of this group, see {@link EventBus#registerAllSticky(Object...)}. */
+    public void registerSticky() {
+        eventBus.registerAllSticky(subscribers);
+    }
+
+    /** Unregisters all subscribers of this group, see {@link EventBus#unregisterAll(Object...)}. */
+    public void unregister() {
+        eventBus.unregisterAll(subscribers);
+    }
+
+    /** True if all subscribers of this group are registered. */
+    public boolean isRegistered() {
+        synchronized (eventBus) {
+            for (Object subscriber : subscribers) {
+                if (!eventBus.isRegistered(subscriber)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
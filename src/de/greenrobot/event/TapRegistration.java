@@ -0,0 +1,22 @@
+package de.greenrobot.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A registered {@link EventTap} with its sampling state. */
+final class TapRegistration {
+    final EventTap tap;
+    //每多少个事件调用一次,1表示每个事件都调用
+    final int sampleEvery;
+    private final AtomicLong eventCount;
+
+    TapRegistration(EventTap tap, int sampleEvery) {
+        this.tap = tap;
+        this.sampleEvery = sampleEvery;
+        eventCount = sampleEvery > 1 ? new AtomicLong() : null;
+    }
+
+    //判断本次事件是否需要调用
+    boolean sample() {
+        return eventCount == null || eventCount.getAndIncrement() % sampleEvery == 0;
+    }
+}
@@ -38,5 +38,13 @@ public enum ThreadMode {
      * of long running asynchronous handler methods at the same time to limit the number of concurrent threads. EventBus
      * uses a thread pool to efficiently reuse threads from completed asynchronous event handler notifications.
      */
-    Async
+    Async,
+
+    /**
+     * Event handler methods are called in a background thread, one event at a time and in the order the events were
+     * posted. Each subscriber object has its own mailbox, shared by all of its handler methods using this mode. A
+     * mailbox occupies a thread of the EventBus thread pool only while it has events, so different subscribers process
+     * their events in parallel without a dedicated thread each. Method name: onEventMailbox.
+     */
+    Mailbox
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package de.greenrobot.event;
+
+/**
+ * A sticky event together with its version. Every time a sticky event is stored, it gets a new version, which is higher
+ * than all versions handed out by the same {@link EventBus} before. Comparing versions is a cheap way to check whether a
+ * sticky event has changed.
+ *
+ * @see EventBus#getStickyEventWithVersion(Class)
+ */
+public final class VersionedEvent<T> {
+    /** The sticky event. */
+    public final T event;
+
+    /** The version of the sticky event. */
+    public final long version;
+
+    public VersionedEvent(T event, long version) {
+        this.event = event;
+        this.version = version;
+    }
+
+}
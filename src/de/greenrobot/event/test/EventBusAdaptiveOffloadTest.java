@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import de.greenrobot.event.AsyncTolerantSubscriber;
+import de.greenrobot.event.DeadLetter;
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.EventBusException;
+import de.greenrobot.event.SubscriberExceptionEvent;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusAdaptiveOffloadTest extends AbstractEventBusTest {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        eventBus = EventBus.builder().adaptiveOffload(5, 100).build();
+    }
+
+    public void testSlowSubscriberOffloadedAndRecovered() throws InterruptedException {
+        TolerantSubscriber subscriber = new TolerantSubscriber();
+        eventBus.register(subscriber);
+        subscriber.sleepMillis = 20;
+        // The first invocations run inline while the average is measured
+        for (int i = 0; i < 8; i++) {
+            eventBus.post(i);
+        }
+        assertSame(Thread.currentThread(), subscriber.threads.get(7));
+
+        long start = System.currentTimeMillis();
+        for (int i = 8; i < 28; i++) {
+            eventBus.post(i);
+        }
+        assertTrue(System.currentTimeMillis() - start < 200);
+        waitForEvents(subscriber, 28);
+        for (int i = 0; i < 28; i++) {
+            assertEquals(i, subscriber.events.get(i).intValue());
+        }
+        assertNotSame(Thread.currentThread(), subscriber.threads.get(27));
+
+        // Fast again: the average drops while events go through the lane, then delivery returns to the posting thread
+        subscriber.sleepMillis = 0;
+        for (int i = 28; i < 108; i++) {
+            eventBus.post(i);
+            waitForEvents(subscriber, i + 1);
+        }
+        assertSame(Thread.currentThread(), subscriber.threads.get(107));
+        for (int i = 0; i < 108; i++) {
+            assertEquals(i, subscriber.events.get(i).intValue());
+        }
+    }
+
+    public void testSingleSlowInvocationNotOffloaded() {
+        TolerantSubscriber subscriber = new TolerantSubscriber();
+        eventBus.register(subscriber);
+        subscriber.sleepMillis = 100;
+        eventBus.post(0);
+        subscriber.sleepMillis = 0;
+        for (int i = 1; i < 20; i++) {
+            eventBus.post(i);
+        }
+        assertEquals(20, subscriber.events.size());
+        for (Thread thread : subscriber.threads) {
+            assertSame(Thread.currentThread(), thread);
+        }
+    }
+
+    public void testFullLaneAddsDeadLetters() throws InterruptedException {
+        eventBus = EventBus.builder().adaptiveOffload(5, 2).logSubscriberExceptions(false).build();
+        TolerantSubscriber subscriber = new TolerantSubscriber();
+        eventBus.register(subscriber);
+        eventBus.register(new SubscriberExceptionEventTracker());
+        subscriber.sleepMillis = 10;
+        for (int i = 0; i < 8; i++) {
+            eventBus.post(i);
+        }
+        subscriber.sleepMillis = 50;
+        for (int i = 8; i < 18; i++) {
+            eventBus.post(i);
+        }
+        List<DeadLetter> deadLetters = eventBus.getDeadLetters();
+        assertFalse(deadLetters.isEmpty());
+        assertTrue(deadLetters.get(0).throwable instanceof EventBusException);
+        assertEventCount(deadLetters.size());
+        assertTrue(((SubscriberExceptionEvent) lastEvent).throwable instanceof EventBusException);
+        waitForEvents(subscriber, 18 - deadLetters.size());
+        int previous = -1;
+        for (Integer event : subscriber.events) {
+            assertTrue(event > previous);
+            previous = event;
+        }
+    }
+
+    public void testIntolerantSubscriberStaysInline() {
+        IntolerantSubscriber subscriber = new IntolerantSubscriber();
+        eventBus.register(subscriber);
+        for (int i = 0; i < 5; i++) {
+            eventBus.post("Slow");
+            assertSame(Thread.currentThread(), lastThread);
+        }
+        assertEventCount(5);
+    }
+
+    private void waitForEvents(TolerantSubscriber subscriber, int count) throws InterruptedException {
+        for (int i = 0; i < 500 && subscriber.events.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, subscriber.events.size());
+    }
+
+    class TolerantSubscriber implements AsyncTolerantSubscriber {
+        final List<Integer> events = new CopyOnWriteArrayList<Integer>();
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+        volatile long sleepMillis;
+
+        public void onEvent(Integer event) throws InterruptedException {
+            if (sleepMillis > 0) {
+                Thread.sleep(sleepMillis);
+            }
+            threads.add(Thread.currentThread());
+            events.add(event);
+        }
+    }
+
+    class SubscriberExceptionEventTracker {
+        public void onEvent(SubscriberExceptionEvent event) {
+            trackEvent(event);
+        }
+    }
+
+    class IntolerantSubscriber {
+        public void onEvent(String event) throws InterruptedException {
+            Thread.sleep(10);
+            trackEvent(event);
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ package de.greenrobot.event.test;
 import android.app.Activity;
 import android.util.Log;
 import de.greenrobot.event.EventBus;
+import de.greenrobot.event.EventSupplier;
 import junit.framework.TestCase;
 
 /**
@@ -83,6 +84,37 @@ public class EventBusBasicTest extends TestCase {
         }
     }
 
+    public void testRegisterUnregisterUsesIdentity() {
+        EqualSubscriber subscriber1 = new EqualSubscriber();
+        EqualSubscriber subscriber2 = new EqualSubscriber();
+        eventBus.register(subscriber1);
+        assertFalse(eventBus.isRegistered(subscriber2));
+        eventBus.register(subscriber2);
+        eventBus.unregister(subscriber1);
+        assertFalse(eventBus.isRegistered(subscriber1));
+        assertTrue(eventBus.isRegistered(subscriber2));
+
+        eventBus.post("Hello");
+        assertNull(subscriber1.lastStringEvent);
+        assertEquals("Hello", subscriber2.lastStringEvent);
+    }
+
+    public void testUnregisterOneOfMany() {
+        EventBusBasicTest[] subscribers = new EventBusBasicTest[100];
+        for (int i = 0; i < subscribers.length; i++) {
+            subscribers[i] = new EventBusBasicTest();
+            eventBus.register(subscribers[i]);
+        }
+        eventBus.unregister(subscribers[42]);
+        eventBus.post("Hello");
+        eventBus.post(42);
+        for (int i = 0; i < subscribers.length; i++) {
+            int expectedCount = i == 42 ? 0 : 1;
+            assertEquals(expectedCount, subscribers[i].countStringEvent);
+            assertEquals(expectedCount, subscribers[i].countIntEvent);
+        }
+    }
+
     public void testIsRegistered() {
         assertFalse(eventBus.isRegistered(this));
         eventBus.register(this);
@@ -184,6 +216,80 @@ public class EventBusBasicTest extends TestCase {
         assertFalse(eventBus.hasSubscriberForEvent(String.class));
     }
 
+    public void testPostIfSubscribed() {
+        final int[] supplied = new int[1];
+        EventSupplier<String> supplier = new EventSupplier<String>() {
+            @Override
+            public String get() {
+                supplied[0]++;
+                return "Hello";
+            }
+        };
+        assertFalse(eventBus.postIfSubscribed(String.class, supplier));
+        assertEquals(0, supplied[0]);
+
+        eventBus.register(this);
+        assertTrue(eventBus.postIfSubscribed(String.class, supplier));
+        assertEquals(1, supplied[0]);
+        assertEquals("Hello", lastStringEvent);
+
+        eventBus.unregister(this);
+        assertFalse(eventBus.postIfSubscribed(String.class, supplier));
+        assertEquals(1, supplied[0]);
+    }
+
+    public void testPostIfSubscribedSuperclass() {
+        Object subscriber = new Object() {
+            public void onEvent(Object event) {
+            }
+        };
+        eventBus.register(subscriber);
+        assertTrue(eventBus.postIfSubscribed(String.class, new EventSupplier<String>() {
+            @Override
+            public String get() {
+                return "Hello";
+            }
+        }));
+    }
+
+    public void testPostIfSubscribedUnregisterInSupplier() {
+        eventBus.register(this);
+        assertTrue(eventBus.postIfSubscribed(String.class, new EventSupplier<String>() {
+            @Override
+            public String get() {
+                eventBus.unregister(EventBusBasicTest.this);
+                return "Hello";
+            }
+        }));
+        assertEquals("Hello", lastStringEvent);
+        assertFalse(eventBus.isRegistered(this));
+    }
+
+    public void testPostIfSubscribedInterface() {
+        final CharSequence[] received = new CharSequence[1];
+        Object subscriber = new Object() {
+            public void onEvent(CharSequence event) {
+                received[0] = event;
+            }
+        };
+        assertFalse(eventBus.postIfSubscribed(CharSequence.class, new EventSupplier<CharSequence>() {
+            @Override
+            public CharSequence get() {
+                fail("No subscriber");
+                return null;
+            }
+        }));
+
+        eventBus.register(subscriber);
+        assertTrue(eventBus.postIfSubscribed(CharSequence.class, new EventSupplier<CharSequence>() {
+            @Override
+            public CharSequence get() {
+                return new StringBuilder("Hello");
+            }
+        }));
+        assertEquals("Hello", received[0].toString());
+    }
+
     public void testHasSubscriberForEventImplementedInterface() {
         assertFalse(eventBus.hasSubscriberForEvent(String.class));
 
@@ -226,6 +332,24 @@ public class EventBusBasicTest extends TestCase {
         }
     }
 
+    static class EqualSubscriber {
+        public String lastStringEvent;
+
+        public void onEvent(String event) {
+            lastStringEvent = event;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EqualSubscriber;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
     class MyEvent {
     }
 
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.greenrobot.event.CircuitBreakerEvent;
+import de.greenrobot.event.EventBus;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusCircuitBreakerTest extends AbstractEventBusTest {
+
+    private final List<CircuitBreakerEvent> transitions = new CopyOnWriteArrayList<CircuitBreakerEvent>();
+    private final AtomicInteger invocations = new AtomicInteger();
+    private volatile boolean failing = true;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        eventBus = EventBus.builder().logSubscriberExceptions(false).sendSubscriberExceptionEvent(false)
+                .circuitBreaker(0.5f, 4, 100).build();
+        eventBus.register(this);
+    }
+
+    public void testTripAndSkip() {
+        eventBus.post("Foo");
+        assertTrue(transitions.isEmpty());
+        eventBus.post("Foo");
+        assertTransition(0, CircuitBreakerEvent.State.CLOSED, CircuitBreakerEvent.State.OPEN);
+
+        for (int i = 0; i < 5; i++) {
+            eventBus.post("Foo");
+        }
+        assertEquals(2, invocations.get());
+        assertEquals(1, transitions.size());
+    }
+
+    public void testSuccessfulProbeCloses() throws InterruptedException {
+        eventBus.post("Foo");
+        eventBus.post("Foo");
+        Thread.sleep(150);
+        failing = false;
+        eventBus.post("Foo");
+        assertEquals(3, invocations.get());
+        assertTransition(1, CircuitBreakerEvent.State.OPEN, CircuitBreakerEvent.State.HALF_OPEN);
+        assertTransition(2, CircuitBreakerEvent.State.HALF_OPEN, CircuitBreakerEvent.State.CLOSED);
+
+        eventBus.post("Foo");
+        assertEquals(4, invocations.get());
+    }
+
+    public void testFailedProbeOpensAgain() throws InterruptedException {
+        eventBus.post("Foo");
+        eventBus.post("Foo");
+        eventBus.post("Foo");
+        Thread.sleep(150);
+        eventBus.post("Foo");
+        assertEquals(3, invocations.get());
+        assertTransition(2, CircuitBreakerEvent.State.HALF_OPEN, CircuitBreakerEvent.State.OPEN);
+        assertEquals(1, transitions.get(2).skippedCount);
+
+        eventBus.post("Foo");
+        assertEquals(3, invocations.get());
+    }
+
+    public void testSuccessesKeepClosed() {
+        failing = false;
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("Foo");
+        }
+        failing = true;
+        eventBus.post("Foo");
+        assertEquals(11, invocations.get());
+        assertTrue(transitions.isEmpty());
+    }
+
+    public void testOnlyProbeClosesHalfOpenBreaker() throws InterruptedException {
+        BlockingSubscriber subscriber = new BlockingSubscriber();
+        eventBus.register(subscriber);
+        try {
+            // Allowed while closed, completes only after the probe started
+            Thread early = postInThread(BlockingSubscriber.EARLY);
+            subscriber.earlyStarted.await();
+            eventBus.post(BlockingSubscriber.FAIL);
+            eventBus.post(BlockingSubscriber.FAIL);
+            assertTransition(subscriber, 0, CircuitBreakerEvent.State.CLOSED, CircuitBreakerEvent.State.OPEN);
+
+            Thread.sleep(150);
+            Thread probe = postInThread(BlockingSubscriber.PROBE);
+            subscriber.probeStarted.await();
+            subscriber.releaseEarly.countDown();
+            early.join();
+            // Transitions are posted from the probing thread once the probe completed
+            assertEquals(1, transitions.size());
+
+            subscriber.releaseProbe.countDown();
+            probe.join();
+            assertEquals(3, transitions.size());
+            assertTransition(subscriber, 1, CircuitBreakerEvent.State.OPEN, CircuitBreakerEvent.State.HALF_OPEN);
+            assertTransition(subscriber, 2, CircuitBreakerEvent.State.HALF_OPEN, CircuitBreakerEvent.State.CLOSED);
+        } finally {
+            subscriber.releaseEarly.countDown();
+            subscriber.releaseProbe.countDown();
+        }
+    }
+
+    private Thread postInThread(final Integer event) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                eventBus.post(event);
+            }
+        };
+        thread.start();
+        return thread;
+    }
+
+    private void assertTransition(int index, CircuitBreakerEvent.State previousState, CircuitBreakerEvent.State state) {
+        assertTransition(this, index, previousState, state);
+    }
+
+    private void assertTransition(Object subscriber, int index, CircuitBreakerEvent.State previousState,
+            CircuitBreakerEvent.State state) {
+        CircuitBreakerEvent event = transitions.get(index);
+        assertSame(subscriber, event.subscriber);
+        assertEquals("onEvent", event.subscriberMethod.getName());
+        assertEquals(previousState, event.previousState);
+        assertEquals(state, event.state);
+    }
+
+    public void onEvent(String event) {
+        invocations.incrementAndGet();
+        if (failing) {
+            throw new RuntimeException("Failing");
+        }
+    }
+
+    public void onEvent(CircuitBreakerEvent event) {
+        transitions.add(event);
+    }
+
+    class BlockingSubscriber {
+        static final int EARLY = 1;
+        static final int FAIL = 2;
+        static final int PROBE = 3;
+        final CountDownLatch earlyStarted = new CountDownLatch(1);
+        final CountDownLatch probeStarted = new CountDownLatch(1);
+        final CountDownLatch releaseEarly = new CountDownLatch(1);
+        final CountDownLatch releaseProbe = new CountDownLatch(1);
+
+        public void onEvent(Integer event) throws InterruptedException {
+            if (event == EARLY) {
+                earlyStarted.countDown();
+                releaseEarly.await();
+            } else if (event == FAIL) {
+                throw new RuntimeException("Failing");
+            } else {
+                probeStarted.countDown();
+                releaseProbe.await();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.greenrobot.event.ConsumerGroup;
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.EventBusException;
+import de.greenrobot.event.RetryPolicy;
+import de.greenrobot.event.ThreadMode;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusConsumerGroupTest extends AbstractEventBusTest {
+
+    private static final int COUNT = 200;
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private volatile CountDownLatch done = new CountDownLatch(COUNT);
+
+    public void testEachEventToExactlyOneMember() throws InterruptedException {
+        ConsumerGroup group = eventBus.createConsumerGroup(IntTestEvent.class);
+        Worker worker1 = new Worker();
+        Worker worker2 = new Worker();
+        Worker worker3 = new Worker();
+        group.register(worker1);
+        group.register(worker2);
+        group.register(worker3);
+        assertTrue(eventBus.hasSubscriberForEvent(IntTestEvent.class));
+
+        for (int i = 0; i < COUNT; i++) {
+            eventBus.post(new IntTestEvent(i));
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(COUNT, processed.get());
+        assertEquals(COUNT, worker1.count.get() + worker2.count.get() + worker3.count.get());
+
+        List<ConsumerGroup.MemberStats> stats = group.getMemberStats();
+        assertEquals(3, stats.size());
+        assertSame(worker1, stats.get(0).subscriber);
+        long total = 0;
+        for (ConsumerGroup.MemberStats memberStats : stats) {
+            total += memberStats.processedCount;
+            assertEquals(0, memberStats.queueDepth);
+        }
+        assertEquals(COUNT, total);
+        assertEquals(worker1.count.get(), stats.get(0).processedCount);
+    }
+
+    public void testWorkSpreadsOverMembers() throws InterruptedException {
+        ConsumerGroup group = eventBus.createConsumerGroup(IntTestEvent.class);
+        Worker worker1 = new Worker();
+        Worker worker2 = new Worker();
+        worker1.sleepMillis = 5;
+        worker2.sleepMillis = 5;
+        group.register(worker1);
+        group.register(worker2);
+        done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            eventBus.post(new IntTestEvent(i));
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(worker1.count.get() > 0);
+        assertTrue(worker2.count.get() > 0);
+    }
+
+    public void testUnregisterLastMember() {
+        ConsumerGroup group = eventBus.createConsumerGroup(IntTestEvent.class);
+        Worker worker = new Worker();
+        group.register(worker);
+        assertTrue(eventBus.isRegistered(group));
+        group.unregister(worker);
+        assertFalse(eventBus.isRegistered(group));
+        assertFalse(eventBus.hasSubscriberForEvent(IntTestEvent.class));
+        assertTrue(group.getMemberStats().isEmpty());
+    }
+
+    public void testMemberWithoutMethod() {
+        ConsumerGroup group = eventBus.createConsumerGroup(String.class);
+        try {
+            group.register(new Worker());
+            fail("Should have failed");
+        } catch (EventBusException expected) {
+            // Expected
+        }
+    }
+
+    public void testMainThreadMemberRejected() {
+        ConsumerGroup group = eventBus.createConsumerGroup(IntTestEvent.class);
+        try {
+            group.register(new MainThreadWorker());
+            fail("Should have failed");
+        } catch (EventBusException expected) {
+            // Expected
+        }
+        assertFalse(eventBus.hasSubscriberForEvent(IntTestEvent.class));
+    }
+
+    public void testMemberRetryPolicy() throws InterruptedException {
+        eventBus = EventBus.builder().logSubscriberExceptions(false)
+                .retryPolicy(FlakyWorker.class, IntTestEvent.class, new RetryPolicy(3, 10, 10)).build();
+        done = new CountDownLatch(1);
+        ConsumerGroup group = eventBus.createConsumerGroup(IntTestEvent.class);
+        FlakyWorker worker = new FlakyWorker();
+        group.register(worker);
+        eventBus.post(new IntTestEvent(1));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, worker.attempts.get());
+    }
+
+    public void testMemberRetryWithForcedMailbox() throws InterruptedException {
+        eventBus = EventBus.builder().logSubscriberExceptions(false).forceThreadMode(IntTestEvent.class,
+                ThreadMode.Mailbox).retryPolicy(FlakyWorker.class, IntTestEvent.class, new RetryPolicy(3, 10, 10))
+                .build();
+        done = new CountDownLatch(1);
+        ConsumerGroup group = eventBus.createConsumerGroup(IntTestEvent.class);
+        FlakyWorker worker = new FlakyWorker();
+        group.register(worker);
+        eventBus.post(new IntTestEvent(1));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, worker.attempts.get());
+    }
+
+    class Worker {
+        final AtomicInteger count = new AtomicInteger();
+        volatile long sleepMillis;
+
+        public void onEvent(IntTestEvent event) throws InterruptedException {
+            if (sleepMillis > 0) {
+                Thread.sleep(sleepMillis);
+            }
+            count.incrementAndGet();
+            processed.incrementAndGet();
+            done.countDown();
+        }
+    }
+
+    class MainThreadWorker {
+        public void onEventMainThread(IntTestEvent event) {
+        }
+    }
+
+    class FlakyWorker {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        public void onEvent(IntTestEvent event) {
+            if (attempts.incrementAndGet() == 1) {
+                throw new RuntimeException("First attempt fails");
+            }
+            done.countDown();
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.ThreadMode;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusEventTypeConfigTest extends AbstractEventBusTest {
+
+    private int countObjectEvent;
+    private int countMyEvent;
+
+    public void testInheritanceSwitchedOffForType() {
+        eventBus = EventBus.builder().eventInheritance(MyEvent.class, false).build();
+        eventBus.register(this);
+        eventBus.post(new MyEvent());
+        assertEquals(1, countMyEvent);
+        assertEquals(0, countObjectEvent);
+
+        eventBus.post("Hello");
+        assertEquals(1, countObjectEvent);
+    }
+
+    public void testInheritanceSwitchedOnForType() {
+        eventBus = EventBus.builder().eventInheritance(false).eventInheritance(MyEvent.class, true).build();
+        eventBus.register(this);
+        eventBus.post(new MyEvent());
+        assertEquals(1, countMyEvent);
+        assertEquals(1, countObjectEvent);
+
+        eventBus.post("Hello");
+        assertEquals(1, countObjectEvent);
+    }
+
+    public void testLeafEventType() {
+        eventBus = EventBus.builder().leafEventType(MyEvent.class).build();
+        eventBus.register(this);
+        eventBus.post(new MyEvent());
+        assertEquals(1, countMyEvent);
+        assertEquals(0, countObjectEvent);
+    }
+
+    public void testInheritanceSwitchedOffForStickyType() {
+        eventBus = EventBus.builder().eventInheritance(MyEvent.class, false).build();
+        eventBus.postSticky(new MyEvent());
+        eventBus.postSticky("Hello");
+        eventBus.registerSticky(this);
+        assertEquals(1, countMyEvent);
+        assertEquals(1, countObjectEvent);
+    }
+
+    public void testForceThreadMode() {
+        eventBus = EventBus.builder().forceThreadMode(String.class, ThreadMode.Async).build();
+        eventBus.register(this);
+        eventBus.post("Hello");
+        waitForEventCount(1, 1000);
+        assertNotSame(Thread.currentThread(), lastThread);
+
+        eventBus.post(new MyEvent());
+        assertSame(Thread.currentThread(), lastThread);
+    }
+
+    public void testSuperTypeSubscriberRegisteredAfterPost() {
+        MyEventSubscriber subscriber = new MyEventSubscriber();
+        eventBus.register(subscriber);
+        eventBus.post(new MyEvent());
+        assertEquals(1, subscriber.count);
+
+        eventBus.register(this);
+        eventBus.post(new MyEvent());
+        assertEquals(2, subscriber.count);
+        assertEquals(1, countObjectEvent);
+
+        eventBus.unregister(this);
+        eventBus.post(new MyEvent());
+        assertEquals(1, countObjectEvent);
+    }
+
+    public void onEvent(Object event) {
+        countObjectEvent++;
+        trackEvent(event);
+    }
+
+    public void onEvent(MyEvent event) {
+        countMyEvent++;
+    }
+
+    static class MyEvent {
+    }
+
+    public class MyEventSubscriber {
+        int count;
+
+        public void onEvent(MyEvent event) {
+            count++;
+        }
+    }
+
+}
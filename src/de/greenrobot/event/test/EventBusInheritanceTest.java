@@ -62,6 +62,32 @@ public class EventBusInheritanceTest extends TestCase {
         assertEquals(3, countObjectEvent);
     }
 
+    public void testEventHierarchyStickyRemoved() {
+        eventBus.postSticky("Hello");
+        eventBus.postSticky(new MyEvent());
+        eventBus.postSticky(new MyEventExtended());
+        eventBus.removeStickyEvent(MyEvent.class);
+        eventBus.registerSticky(this);
+        assertEquals(1, countMyEventExtended);
+        assertEquals(1, countMyEvent);
+        assertEquals(2, countObjectEvent);
+        assertEquals(1, countMyEventInterface);
+        assertEquals(1, countMyEventInterfaceExtended);
+    }
+
+    public void testEventInterfaceHierarchySticky() {
+        eventBus.postSticky(new MyEvent());
+        eventBus.postSticky(new MyEventExtended());
+        eventBus.registerSticky(this);
+        assertEquals(2, countMyEventInterface);
+        assertEquals(1, countMyEventInterfaceExtended);
+
+        eventBus.removeAllStickyEvents();
+        eventBus.unregister(this);
+        eventBus.registerSticky(this);
+        assertEquals(2, countMyEventInterface);
+    }
+
     public void testEventInterfaceHierarchy() {
         eventBus.register(this);
 
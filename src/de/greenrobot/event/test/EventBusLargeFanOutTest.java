@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.greenrobot.event.EventBus;
+
+/**
+ * Uses a low threshold so that event types switch to chunked subscription storage.
+ */
+public class EventBusLargeFanOutTest extends AbstractEventBusTest {
+
+    private final List<PrioSubscriber> registered = new ArrayList<PrioSubscriber>();
+    private volatile int lastPrio;
+    private volatile String fail;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        eventBus = EventBus.builder().largeFanOutThreshold(4).build();
+    }
+
+    public void testRegisterUnregisterManyWithPriorities() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            register(random.nextInt(20));
+        }
+        assertPostReachesRegistered();
+
+        for (int i = 0; i < 700; i++) {
+            eventBus.unregister(registered.remove(random.nextInt(registered.size())));
+        }
+        assertPostReachesRegistered();
+
+        for (int i = 0; i < 300; i++) {
+            register(random.nextInt(20));
+        }
+        assertPostReachesRegistered();
+
+        // Falls back to a plain list below half of the threshold
+        while (registered.size() > 1) {
+            eventBus.unregister(registered.remove(0));
+        }
+        assertPostReachesRegistered();
+
+        eventBus.unregister(registered.remove(0));
+        assertFalse(eventBus.hasSubscriberForEvent(String.class));
+    }
+
+    public void testRegisterAllAboveThreshold() {
+        PrioSubscriber[] subscribers = new PrioSubscriber[200];
+        for (int i = 0; i < subscribers.length; i++) {
+            subscribers[i] = new PrioSubscriber(0);
+            registered.add(subscribers[i]);
+        }
+        eventBus.registerAll((Object[]) subscribers);
+        assertPostReachesRegistered();
+        eventBus.unregisterAll((Object[]) subscribers);
+        registered.clear();
+        assertPostReachesRegistered();
+    }
+
+    private void register(int priority) {
+        PrioSubscriber subscriber = new PrioSubscriber(priority);
+        eventBus.register(subscriber, priority);
+        registered.add(subscriber);
+    }
+
+    private void assertPostReachesRegistered() {
+        eventCount.set(0);
+        lastPrio = Integer.MAX_VALUE;
+        eventBus.post("Hello");
+        assertEventCount(registered.size());
+        assertNull(fail);
+        for (PrioSubscriber subscriber : registered) {
+            assertEquals(1, subscriber.count);
+            subscriber.count = 0;
+        }
+    }
+
+    public class PrioSubscriber {
+        final int prio;
+        int count;
+
+        PrioSubscriber(int prio) {
+            this.prio = prio;
+        }
+
+        public void onEvent(String event) {
+            if (prio > lastPrio) {
+                fail = "Called prio " + prio + " after " + lastPrio;
+            }
+            lastPrio = prio;
+            count++;
+            trackEvent(event);
+        }
+    }
+
+}
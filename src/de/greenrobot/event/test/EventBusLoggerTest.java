@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.Logger;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusLoggerTest extends AbstractEventBusTest {
+
+    private final List<String> messages = new ArrayList<String>();
+    private final List<Throwable> throwables = new ArrayList<Throwable>();
+    private Logger.Level minLevel = Logger.Level.DEBUG;
+
+    private final Logger logger = new Logger() {
+        @Override
+        public boolean isLoggable(Level level) {
+            return level.compareTo(minLevel) >= 0;
+        }
+
+        @Override
+        protected void write(Level level, String message, Throwable throwable) {
+            messages.add(level + " " + message);
+            throwables.add(throwable);
+        }
+    };
+
+    public void testNoSubscriberMessage() {
+        eventBus = EventBus.builder().logger(logger).sendNoSubscriberEvent(false).build();
+        assertSame(logger, eventBus.getLogger());
+        eventBus.post("Hello");
+        assertEquals(1, messages.size());
+        assertEquals("DEBUG No subscribers registered for event " + String.class, messages.get(0));
+    }
+
+    public void testSubscriberExceptionMessage() {
+        eventBus = EventBus.builder().logger(logger).sendSubscriberExceptionEvent(false).build();
+        eventBus.register(new ThrowingSubscriber());
+        eventBus.post("Hello");
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0).startsWith("ERROR Could not dispatch event: " + String.class));
+        assertTrue(messages.get(0).endsWith(ThrowingSubscriber.class.toString()));
+        assertTrue(throwables.get(0) instanceof RuntimeException);
+    }
+
+    public void testDisabledLevelIsNotFormatted() {
+        minLevel = Logger.Level.INFO;
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                fail("Argument of disabled level must not be formatted");
+                return null;
+            }
+        };
+        logger.log(Logger.Level.DEBUG, "Value: {}", argument);
+        assertTrue(messages.isEmpty());
+
+        eventBus = EventBus.builder().logger(logger).sendNoSubscriberEvent(false).build();
+        eventBus.post("Hello");
+        assertTrue(messages.isEmpty());
+    }
+
+    public void testFormat() {
+        RuntimeException exception = new RuntimeException();
+        logger.log(Logger.Level.WARN, "{} and {}", 1, 2, exception);
+        logger.log(Logger.Level.WARN, "{} of {}", new Object[]{1}, null);
+        logger.log(Logger.Level.WARN, "{}", "missing", exception);
+        assertEquals("WARN 1 and 2", messages.get(0));
+        assertEquals("WARN 1 of {}", messages.get(1));
+        assertEquals("WARN missing", messages.get(2));
+        assertSame(exception, throwables.get(0));
+        assertSame(exception, throwables.get(2));
+    }
+
+    public void testNoneLogger() {
+        eventBus = EventBus.builder().logger(Logger.NONE).build();
+        eventBus.post("Hello");
+        assertFalse(Logger.NONE.isLoggable(Logger.Level.ERROR));
+    }
+
+    public static class ThrowingSubscriber {
+        public void onEvent(String event) {
+            throw new RuntimeException("Expected");
+        }
+    }
+
+}
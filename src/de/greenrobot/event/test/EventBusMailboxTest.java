@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusMailboxTest extends AbstractEventBusTest {
+
+    private static final int COUNT = 1000;
+
+    public void testOrderedPerSubscriber() throws InterruptedException {
+        MailboxSubscriber subscriber1 = new MailboxSubscriber();
+        MailboxSubscriber subscriber2 = new MailboxSubscriber();
+        eventBus.register(subscriber1);
+        eventBus.register(subscriber2);
+        for (int i = 0; i < COUNT; i++) {
+            eventBus.post(i);
+        }
+        subscriber1.awaitEvents();
+        subscriber2.awaitEvents();
+        subscriber1.assertInOrder();
+        subscriber2.assertInOrder();
+        assertFalse(subscriber1.concurrent);
+        assertFalse(subscriber2.concurrent);
+    }
+
+    public void testParallelAcrossSubscribers() throws InterruptedException {
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        Object subscriber1 = new BlockingSubscriber(bothRunning);
+        Object subscriber2 = new BlockingSubscriber(bothRunning);
+        eventBus.register(subscriber1);
+        eventBus.register(subscriber2);
+        eventBus.post("Hello");
+        // Would time out if both mailboxes were served by a single thread
+        assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+        waitForEventCount(2, 1000);
+        assertNotSame(Thread.currentThread(), lastThread);
+    }
+
+    class MailboxSubscriber {
+        final List<Integer> events = new CopyOnWriteArrayList<Integer>();
+        final AtomicInteger active = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(COUNT);
+        volatile boolean concurrent;
+
+        public void onEventMailbox(Integer event) {
+            if (active.incrementAndGet() > 1) {
+                concurrent = true;
+            }
+            events.add(event);
+            active.decrementAndGet();
+            done.countDown();
+        }
+
+        void awaitEvents() throws InterruptedException {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+
+        void assertInOrder() {
+            assertEquals(COUNT, events.size());
+            for (int i = 0; i < COUNT; i++) {
+                assertEquals(i, events.get(i).intValue());
+            }
+        }
+    }
+
+    class BlockingSubscriber {
+        private final CountDownLatch bothRunning;
+
+        BlockingSubscriber(CountDownLatch bothRunning) {
+            this.bothRunning = bothRunning;
+        }
+
+        public void onEventMailbox(String event) throws InterruptedException {
+            bothRunning.countDown();
+            bothRunning.await(5, TimeUnit.SECONDS);
+            trackEvent(event);
+        }
+    }
+
+}
@@ -17,6 +17,7 @@ package de.greenrobot.event.test;
 
 import de.greenrobot.event.EventBus;
 import de.greenrobot.event.NoSubscriberEvent;
+import de.greenrobot.event.NoSubscriberSummaryEvent;
 import de.greenrobot.event.SubscriberExceptionEvent;
 
 /**
@@ -57,6 +58,27 @@ public class EventBusNoSubscriberEventTest extends AbstractEventBusTest {
         assertEquals("Foo", noSub.originalEvent);
     }
 
+    public void testAggregatedNoSubscriberEvents() {
+        eventBus = EventBus.builder().aggregateNoSubscriberEvents(200).build();
+        eventBus.register(this);
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("Foo");
+        }
+        eventBus.post(Integer.valueOf(42));
+        assertEquals(0, eventCount.intValue());
+
+        waitForEventCount(1, 1000);
+        assertEquals(NoSubscriberSummaryEvent.class, lastEvent.getClass());
+        NoSubscriberSummaryEvent summary = (NoSubscriberSummaryEvent) lastEvent;
+        assertSame(eventBus, summary.eventBus);
+        assertEquals(Long.valueOf(10), summary.countsByEventType.get(String.class));
+        assertEquals(Long.valueOf(1), summary.countsByEventType.get(Integer.class));
+    }
+
+    public void onEvent(NoSubscriberSummaryEvent event) {
+        trackEvent(event);
+    }
+
     public void onEvent(NoSubscriberEvent event) {
         trackEvent(event);
     }
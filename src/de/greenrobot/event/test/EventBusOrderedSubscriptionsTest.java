@@ -17,6 +17,7 @@ package de.greenrobot.event.test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import de.greenrobot.event.EventBus;
 import android.util.Log;
@@ -54,6 +55,23 @@ public class EventBusOrderedSubscriptionsTest extends AbstractEventBusTest {
         runTestOrdered(Integer.valueOf(42), true);
     }
 
+    public void testOrderedManyPriorities() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            register(random.nextInt(50) - 25, false);
+        }
+        for (int i = 0; i < 100; i++) {
+            eventBus.unregister(registered.remove(random.nextInt(registered.size())));
+        }
+
+        eventBus.post("42");
+
+        assertEventCount(400);
+        assertEquals(null, fail);
+
+        unregisterAll();
+    }
+
     protected void runTestOrdered(Object event, boolean sticky) {
         register(1, sticky);
         register(-1, sticky);
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.EventBusException;
+import de.greenrobot.event.SubscriberExceptionEvent;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusParallelFanOutTest extends AbstractEventBusTest {
+
+    private final List<String> log = new CopyOnWriteArrayList<String>();
+    private final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+    private volatile Throwable subscriberException;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        eventBus = EventBus.builder().parallelFanOut(String.class).logSubscriberExceptions(false).build();
+    }
+
+    public void testSamePriorityRunsConcurrently() {
+        // Each subscriber waits for all others: this only completes if they overlap
+        CyclicBarrier barrier = new CyclicBarrier(4);
+        for (int i = 0; i < 4; i++) {
+            eventBus.register(new BarrierSubscriber(barrier));
+        }
+        eventBus.post("Hello");
+        // All done when post returns
+        assertEquals(4, log.size());
+        assertTrue(threads.contains(Thread.currentThread()));
+    }
+
+    public void testNestedParallelPost() {
+        eventBus.register(new SlowSubscriber("slow"));
+        eventBus.register(new RepostingSubscriber());
+        eventBus.register(new RepostingSubscriber());
+        eventBus.post("Hello");
+        // The nested posts happen in fan-out threads, which deliver them one subscriber after the other
+        assertEquals(3, log.size());
+    }
+
+    public void testPriorityTiersInOrder() {
+        eventBus.register(new SlowSubscriber("high"), 2);
+        eventBus.register(new SlowSubscriber("high"), 2);
+        eventBus.register(new SlowSubscriber("low"), 1);
+        eventBus.register(new SlowSubscriber("low"), 1);
+        eventBus.post("Hello");
+        assertEquals(4, log.size());
+        assertEquals("high", log.get(0));
+        assertEquals("high", log.get(1));
+        assertEquals("low", log.get(2));
+        assertEquals("low", log.get(3));
+    }
+
+    public void testCancelNotAllowed() {
+        eventBus.register(new CancelingSubscriber(), 1);
+        eventBus.register(new SlowSubscriber("low"));
+        eventBus.register(this);
+        eventBus.post("Hello");
+        assertTrue(subscriberException instanceof EventBusException);
+        assertEquals(1, log.size());
+    }
+
+    public void testOtherTypesSequential() {
+        eventBus.register(this);
+        eventBus.post(1);
+        assertSame(Thread.currentThread(), lastThread);
+        assertEventCount(1);
+    }
+
+    public void onEvent(Integer event) {
+        trackEvent(event);
+    }
+
+    public void onEvent(SubscriberExceptionEvent event) {
+        subscriberException = event.throwable;
+    }
+
+    class SlowSubscriber {
+        private final String name;
+
+        SlowSubscriber(String name) {
+            this.name = name;
+        }
+
+        public void onEvent(String event) throws InterruptedException {
+            threads.add(Thread.currentThread());
+            Thread.sleep(100);
+            log.add(name);
+        }
+    }
+
+    class BarrierSubscriber {
+        private final CyclicBarrier barrier;
+
+        BarrierSubscriber(CyclicBarrier barrier) {
+            this.barrier = barrier;
+        }
+
+        public void onEvent(String event) throws Exception {
+            threads.add(Thread.currentThread());
+            barrier.await(5, TimeUnit.SECONDS);
+            log.add("barrier");
+        }
+    }
+
+    class RepostingSubscriber {
+        public void onEvent(String event) {
+            if (event.equals("Hello")) {
+                eventBus.post("Nested");
+            }
+        }
+    }
+
+    class CancelingSubscriber {
+        public void onEvent(String event) {
+            eventBus.cancelEventDelivery(event);
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import de.greenrobot.event.EventBusException;
+import de.greenrobot.event.SubscriptionGroup;
+
+public class EventBusRegisterAllTest extends AbstractEventBusTest {
+
+    public void testRegisterAll() {
+        StringSubscriber subscriber1 = new StringSubscriber();
+        StringSubscriber subscriber2 = new StringSubscriber();
+        IntSubscriber subscriber3 = new IntSubscriber();
+        eventBus.registerAll(subscriber1, subscriber2, subscriber3);
+        assertTrue(eventBus.isRegistered(subscriber1));
+        assertTrue(eventBus.isRegistered(subscriber2));
+        assertTrue(eventBus.isRegistered(subscriber3));
+
+        eventBus.post("Hello");
+        eventBus.post(new IntTestEvent(42));
+        assertEventCount(3);
+
+        eventBus.unregisterAll(subscriber1, subscriber3);
+        assertFalse(eventBus.isRegistered(subscriber1));
+        assertTrue(eventBus.isRegistered(subscriber2));
+        assertFalse(eventBus.isRegistered(subscriber3));
+
+        eventBus.post("Hello");
+        eventBus.post(new IntTestEvent(42));
+        assertEventCount(4);
+        assertEquals(2, subscriber2.count);
+        assertEquals(1, subscriber1.count);
+    }
+
+    public void testRegisterAllIsAtomic() {
+        StringSubscriber subscriber1 = new StringSubscriber();
+        StringSubscriber subscriber2 = new StringSubscriber();
+        eventBus.register(subscriber2);
+        try {
+            eventBus.registerAll(subscriber1, subscriber2);
+            fail("Should have thrown");
+        } catch (EventBusException expected) {
+            // OK
+        }
+        assertFalse(eventBus.isRegistered(subscriber1));
+
+        try {
+            eventBus.registerAll(subscriber1, new Object());
+            fail("Should have thrown");
+        } catch (EventBusException expected) {
+            // OK
+        }
+        assertFalse(eventBus.isRegistered(subscriber1));
+
+        eventBus.post("Hello");
+        assertEventCount(1);
+    }
+
+    public void testRegisterAllSameSubscriberTwice() {
+        StringSubscriber subscriber = new StringSubscriber();
+        try {
+            eventBus.registerAll(subscriber, subscriber);
+            fail("Should have thrown");
+        } catch (EventBusException expected) {
+            // OK
+        }
+        assertFalse(eventBus.isRegistered(subscriber));
+    }
+
+    public void testRegisterAllKeepsPriorityOrder() {
+        final StringBuilder order = new StringBuilder();
+        eventBus.register(new Object() {
+            @SuppressWarnings("unused")
+            public void onEvent(String event) {
+                order.append('H');
+            }
+        }, 10);
+        eventBus.register(new Object() {
+            @SuppressWarnings("unused")
+            public void onEvent(String event) {
+                order.append('L');
+            }
+        }, -10);
+        eventBus.registerAll(new Object() {
+            @SuppressWarnings("unused")
+            public void onEvent(String event) {
+                order.append('1');
+            }
+        }, new Object() {
+            @SuppressWarnings("unused")
+            public void onEvent(String event) {
+                order.append('2');
+            }
+        });
+        eventBus.post("Hello");
+        assertEquals("H12L", order.toString());
+    }
+
+    public void testRegisterAllSticky() {
+        eventBus.postSticky("Sticky");
+        eventBus.registerAllSticky(new StringSubscriber(), new StringSubscriber());
+        assertEventCount(2);
+    }
+
+    public void testSubscriptionGroup() {
+        StringSubscriber subscriber1 = new StringSubscriber();
+        IntSubscriber subscriber2 = new IntSubscriber();
+        SubscriptionGroup group = eventBus.createSubscriptionGroup(subscriber1, subscriber2);
+        assertFalse(group.isRegistered());
+
+        group.register();
+        assertTrue(group.isRegistered());
+        eventBus.post("Hello");
+        eventBus.post(new IntTestEvent(42));
+        assertEventCount(2);
+
+        group.unregister();
+        assertFalse(group.isRegistered());
+        eventBus.post("Hello");
+        assertEventCount(2);
+
+        group.register();
+        eventBus.post("Hello");
+        assertEventCount(3);
+    }
+
+    public class StringSubscriber {
+        int count;
+
+        public void onEvent(String event) {
+            count++;
+            trackEvent(event);
+        }
+    }
+
+    public class IntSubscriber {
+        public void onEvent(IntTestEvent event) {
+            trackEvent(event);
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import de.greenrobot.event.EventBus;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusReplayTest extends AbstractEventBusTest {
+
+    public EventBusReplayTest() {
+        super(true);
+    }
+
+    public void testReplayLastEvents() {
+        eventBus = EventBus.builder().replayBuffer(IntTestEvent.class, 3).build();
+        for (int i = 0; i < 5; i++) {
+            eventBus.post(new IntTestEvent(i));
+        }
+        eventBus.post("Not buffered");
+        assertEquals(3, eventBus.getReplayEvents(IntTestEvent.class).size());
+
+        eventBus.registerReplay(this);
+        assertEquals(3, eventsReceived.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 2, ((IntTestEvent) eventsReceived.get(i)).value);
+        }
+
+        eventBus.post(new IntTestEvent(5));
+        assertEquals(4, eventsReceived.size());
+        assertEquals(5, ((IntTestEvent) lastEvent).value);
+    }
+
+    public void testReplayAgeLimit() throws InterruptedException {
+        eventBus = EventBus.builder().replayBuffer(IntTestEvent.class, 10, 50).build();
+        eventBus.post(new IntTestEvent(1));
+        Thread.sleep(100);
+        eventBus.post(new IntTestEvent(2));
+
+        eventBus.registerReplay(this);
+        assertEquals(1, eventsReceived.size());
+        assertEquals(2, ((IntTestEvent) lastEvent).value);
+    }
+
+    public void testRegisterWithoutReplay() {
+        eventBus = EventBus.builder().replayBuffer(IntTestEvent.class, 3).build();
+        eventBus.post(new IntTestEvent(1));
+        eventBus.register(this);
+        assertEquals(0, eventCount.intValue());
+    }
+
+    public void testReplayConcurrentPostsWithoutGapsOrDuplicates() throws InterruptedException {
+        final int count = 10000;
+        eventBus = EventBus.builder().replayBuffer(IntTestEvent.class, 100).build();
+        Thread poster = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    eventBus.post(new IntTestEvent(i));
+                }
+            }
+        };
+        poster.start();
+        while (eventBus.getReplayEvents(IntTestEvent.class).size() < 50) {
+            Thread.sleep(1);
+        }
+        eventBus.registerReplay(this);
+        poster.join();
+
+        assertFalse(eventsReceived.isEmpty());
+        int first = ((IntTestEvent) eventsReceived.get(0)).value;
+        assertEquals(count - first, eventsReceived.size());
+        for (int i = 0; i < eventsReceived.size(); i++) {
+            assertEquals(first + i, ((IntTestEvent) eventsReceived.get(i)).value);
+        }
+    }
+
+    public void onEvent(IntTestEvent event) {
+        trackEvent(event);
+    }
+
+}
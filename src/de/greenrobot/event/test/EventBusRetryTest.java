@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.greenrobot.event.DeadLetter;
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.RetryPolicy;
+import de.greenrobot.event.SubscriberExceptionEvent;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusRetryTest extends AbstractEventBusTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger exceptionEvents = new AtomicInteger();
+    private volatile int failures;
+    private volatile CountDownLatch deliveredLatch = new CountDownLatch(1);
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        eventBus = EventBus.builder().logSubscriberExceptions(false)
+                .retryPolicy(getClass(), String.class, new RetryPolicy(3, 20, 100)).deadLetterQueueSize(2).build();
+        eventBus.register(this);
+    }
+
+    public void testRetrySucceeds() throws InterruptedException {
+        failures = 2;
+        eventBus.post("Foo");
+        assertEquals(1, attempts.get());
+        assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        assertEquals(0, exceptionEvents.get());
+        assertTrue(eventBus.getDeadLetters().isEmpty());
+        assertNotSame(Thread.currentThread(), lastThread);
+    }
+
+    public void testDeadLetterAndRedrive() throws InterruptedException {
+        failures = 3;
+        eventBus.post("Foo");
+        waitForDeadLetters(1);
+        assertEquals(3, attempts.get());
+        assertEquals(1, exceptionEvents.get());
+
+        List<DeadLetter> deadLetters = eventBus.getDeadLetters();
+        DeadLetter deadLetter = deadLetters.get(0);
+        assertEquals("Foo", deadLetter.event);
+        assertEquals(3, deadLetter.attempts);
+        assertSame(this, deadLetter.getSubscriber());
+        assertEquals("Failure 3", deadLetter.throwable.getMessage());
+
+        assertEquals(1, eventBus.redriveDeadLetters());
+        assertTrue(eventBus.getDeadLetters().isEmpty());
+        assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(4, attempts.get());
+    }
+
+    public void testDeadLetterQueueBounded() throws InterruptedException {
+        failures = Integer.MAX_VALUE;
+        eventBus.post("Foo1");
+        eventBus.post("Foo2");
+        eventBus.post("Foo3");
+        waitForDroppedDeadLetter();
+        List<DeadLetter> deadLetters = eventBus.getDeadLetters();
+        assertEquals(2, deadLetters.size());
+
+        eventBus.clearDeadLetters();
+        assertTrue(eventBus.getDeadLetters().isEmpty());
+    }
+
+    public void testNoRetryForOtherEventTypes() {
+        failures = 1;
+        eventBus.post(1);
+        assertEquals(1, attempts.get());
+        assertEquals(1, exceptionEvents.get());
+    }
+
+    public void testRetryWhileCircuitBreakerOpen() throws InterruptedException {
+        eventBus = EventBus.builder().logSubscriberExceptions(false).circuitBreaker(1, 1, 200)
+                .retryPolicy(getClass(), String.class, new RetryPolicy(3, 20, 100)).build();
+        eventBus.register(this);
+        failures = 1;
+        eventBus.post("Foo");
+        assertEquals(1, attempts.get());
+
+        // The first retry is due before the cooldown ends and must be rescheduled, not skipped
+        assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        assertTrue(eventBus.getDeadLetters().isEmpty());
+    }
+
+    public void testUnregisterRemovesDeadLetters() {
+        eventBus = EventBus.builder().logSubscriberExceptions(false)
+                .retryPolicy(FailingSubscriber.class, String.class, new RetryPolicy(1, 20, 100)).build();
+        FailingSubscriber subscriber = new FailingSubscriber();
+        eventBus.register(subscriber);
+        eventBus.post("Foo");
+        assertEquals(1, eventBus.getDeadLetters().size());
+
+        eventBus.unregister(subscriber);
+        assertTrue(eventBus.getDeadLetters().isEmpty());
+        WeakReference<FailingSubscriber> reference = new WeakReference<FailingSubscriber>(subscriber);
+        subscriber = null;
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        assertNull(reference.get());
+    }
+
+    private void waitForDeadLetters(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && eventBus.getDeadLetters().size() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, eventBus.getDeadLetters().size());
+    }
+
+    private void waitForDroppedDeadLetter() throws InterruptedException {
+        for (int i = 0; i < 500 && eventBus.getDroppedDeadLetterCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, eventBus.getDroppedDeadLetterCount());
+    }
+
+    public void onEvent(String event) {
+        handle(event);
+    }
+
+    public void onEvent(Integer event) {
+        handle(event);
+    }
+
+    private void handle(Object event) {
+        int attempt = attempts.incrementAndGet();
+        if (attempt <= failures) {
+            throw new RuntimeException("Failure " + attempt);
+        }
+        trackEvent(event);
+        deliveredLatch.countDown();
+    }
+
+    public void onEvent(SubscriberExceptionEvent event) {
+        exceptionEvents.incrementAndGet();
+    }
+
+    static class FailingSubscriber {
+        public void onEvent(String event) {
+            throw new RuntimeException("Failure");
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.SlowSubscriberEvent;
+import de.greenrobot.event.ThreadMode;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusSlowSubscriberTest extends AbstractEventBusTest {
+
+    private final List<SlowSubscriberEvent> violations = new CopyOnWriteArrayList<SlowSubscriberEvent>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        eventBus = EventBus.builder().slowSubscriberBudget(ThreadMode.PostThread, 50).build();
+        eventBus.register(this);
+    }
+
+    public void testSlowSubscriber() throws InterruptedException {
+        eventBus.post("Slow");
+        waitForViolations(1);
+        SlowSubscriberEvent violation = violations.get(0);
+        assertEquals(getClass(), violation.subscriberClass);
+        assertEquals("onEvent", violation.subscriberMethod.getName());
+        assertEquals(String.class, violation.eventType);
+        assertEquals(ThreadMode.PostThread, violation.threadMode);
+        assertEquals(50, violation.budgetMillis);
+        assertTrue(violation.elapsedMillis > 50);
+        assertEquals(Thread.currentThread().getName(), violation.threadName);
+        assertNotNull(violation.stackTrace);
+        boolean subscriberOnStack = false;
+        for (StackTraceElement element : violation.stackTrace) {
+            subscriberOnStack |= element.getClassName().equals(getClass().getName());
+        }
+        assertTrue(subscriberOnStack);
+
+        // Reported only once
+        Thread.sleep(100);
+        assertEquals(1, violations.size());
+    }
+
+    public void testFastSubscriber() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            eventBus.post(i);
+        }
+        Thread.sleep(100);
+        assertTrue(violations.isEmpty());
+        assertEventCount(100);
+    }
+
+    private void waitForViolations(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && violations.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, violations.size());
+    }
+
+    public void onEvent(String event) throws InterruptedException {
+        Thread.sleep(200);
+    }
+
+    public void onEvent(Integer event) {
+        trackEvent(event);
+    }
+
+    public void onEvent(SlowSubscriberEvent event) {
+        violations.add(event);
+    }
+
+}
@@ -15,6 +15,12 @@
  */
 package de.greenrobot.event.test;
 
+import java.util.Comparator;
+
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.EventSizeEstimator;
+import de.greenrobot.event.VersionedEvent;
+
 /**
  * @author Markus Junginger, greenrobot
  */
@@ -131,6 +137,197 @@ public class EventBusStickyEventTest extends AbstractEventBusTest {
         assertEquals(0, eventCount.intValue());
     }
 
+    public void testStickyEventVersion() {
+        assertEquals(0, eventBus.getStickyEventVersion(String.class));
+        assertNull(eventBus.getStickyEventWithVersion(String.class));
+
+        eventBus.postSticky("Sticky");
+        VersionedEvent<String> versioned = eventBus.getStickyEventWithVersion(String.class);
+        assertEquals("Sticky", versioned.event);
+        assertEquals(versioned.version, eventBus.getStickyEventVersion(String.class));
+
+        eventBus.postSticky(new IntTestEvent(1));
+        assertEquals(versioned.version, eventBus.getStickyEventVersion(String.class));
+
+        eventBus.postSticky("Sticky");
+        assertTrue(eventBus.getStickyEventVersion(String.class) > versioned.version);
+
+        eventBus.removeStickyEvent(String.class);
+        assertEquals(0, eventBus.getStickyEventVersion(String.class));
+    }
+
+    public void testCompareAndSetSticky() {
+        eventBus.register(this);
+        assertTrue(eventBus.compareAndSetSticky(null, "First"));
+        assertFalse(eventBus.compareAndSetSticky(null, "Other"));
+        assertEquals("First", eventBus.getStickyEvent(String.class));
+        assertEquals(1, eventCount.intValue());
+
+        String current = eventBus.getStickyEvent(String.class);
+        assertTrue(eventBus.compareAndSetSticky(current, "Second"));
+        assertFalse(eventBus.compareAndSetSticky(current, "Third"));
+        assertEquals("Second", eventBus.getStickyEvent(String.class));
+        assertEquals("Second", lastEvent);
+        assertEquals(2, eventCount.intValue());
+    }
+
+    public void testCompareAndSetStickyConcurrently() throws InterruptedException {
+        final int threadCount = 4;
+        final int incrementsPerThread = 1000;
+        eventBus.postSticky(new IntTestEvent(0));
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < incrementsPerThread; j++) {
+                        IntTestEvent current;
+                        do {
+                            current = eventBus.getStickyEvent(IntTestEvent.class);
+                        } while (!eventBus.compareAndSetSticky(current, new IntTestEvent(current.value + 1)));
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threadCount * incrementsPerThread, eventBus.getStickyEvent(IntTestEvent.class).value);
+    }
+
+    public void testMaxStickyEventsEvictsLeastRecentlyUsed() {
+        eventBus = EventBus.builder().maxStickyEvents(2).build();
+        eventBus.postSticky("Sticky");
+        eventBus.postSticky(new IntTestEvent(1));
+        assertEquals("Sticky", eventBus.getStickyEvent(String.class));
+        eventBus.postSticky(Long.valueOf(42));
+
+        assertEquals(1, eventBus.getStickyEvictionCount());
+        assertNull(eventBus.getStickyEvent(IntTestEvent.class));
+        assertEquals("Sticky", eventBus.getStickyEvent(String.class));
+        assertEquals(Long.valueOf(42), eventBus.getStickyEvent(Long.class));
+    }
+
+    public void testMaxStickyEventsSize() {
+        eventBus = EventBus.builder().maxStickyEventsSize(10, new EventSizeEstimator() {
+            @Override
+            public long estimateSize(Object event) {
+                return event instanceof String ? ((String) event).length() : 1;
+            }
+        }).build();
+        eventBus.postSticky(new IntTestEvent(1));
+        eventBus.postSticky("123456789");
+        assertEquals(0, eventBus.getStickyEvictionCount());
+
+        eventBus.postSticky("1234567890");
+        assertEquals(1, eventBus.getStickyEvictionCount());
+        assertNull(eventBus.getStickyEvent(IntTestEvent.class));
+        assertEquals("1234567890", eventBus.getStickyEvent(String.class));
+    }
+
+    public void testMaxStickyEventsSizeRequiresEstimator() {
+        try {
+            EventBus.builder().maxStickyEventsSize(10, null);
+            fail("Should have thrown");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    public void testMaxStickyEventsEvictsInAccessOrder() {
+        eventBus = EventBus.builder().maxStickyEvents(3).build();
+        eventBus.postSticky("Sticky");
+        eventBus.postSticky(new IntTestEvent(1));
+        eventBus.postSticky(Long.valueOf(42));
+        eventBus.getStickyEvent(String.class);
+        eventBus.getStickyEvent(IntTestEvent.class);
+
+        eventBus.postSticky(Integer.valueOf(7));
+        assertNull(eventBus.getStickyEvent(Long.class));
+        eventBus.postSticky(Double.valueOf(1));
+        assertNull(eventBus.getStickyEvent(String.class));
+        assertEquals(2, eventBus.getStickyEvictionCount());
+        assertNotNull(eventBus.getStickyEvent(IntTestEvent.class));
+        assertEquals(Integer.valueOf(7), eventBus.getStickyEvent(Integer.class));
+        assertEquals(Double.valueOf(1), eventBus.getStickyEvent(Double.class));
+    }
+
+    public void testStickyEventTimeToLive() throws InterruptedException {
+        eventBus = EventBus.builder().stickyEventTimeToLive(String.class, 50).build();
+        eventBus.postSticky("Sticky");
+        eventBus.postSticky(new IntTestEvent(1));
+        Thread.sleep(100);
+
+        eventBus.registerSticky(this);
+        assertEquals(1, eventCount.intValue());
+        assertTrue(lastEvent instanceof IntTestEvent);
+        assertNull(eventBus.getStickyEvent(String.class));
+        assertEquals(1, eventBus.getStickyExpirationCount());
+    }
+
+    public void testKeyedStickyEvents() {
+        eventBus.postSticky("user1", new IntTestEvent(1));
+        eventBus.postSticky("user2", new IntTestEvent(2));
+        eventBus.postSticky("user1", new IntTestEvent(3));
+        assertEquals(3, eventBus.getStickyEvent(IntTestEvent.class, "user1").value);
+        assertEquals(2, eventBus.getStickyEvent(IntTestEvent.class, "user2").value);
+        assertNull(eventBus.getStickyEvent(IntTestEvent.class));
+        assertEquals(2, eventBus.getStickyEvents(IntTestEvent.class).size());
+
+        eventBus.registerSticky(this);
+        assertEquals(2, eventCount.intValue());
+
+        assertEquals(2, eventBus.removeStickyEvent(IntTestEvent.class, "user2").value);
+        assertNull(eventBus.getStickyEvent(IntTestEvent.class, "user2"));
+        eventBus.removeAllStickyEvents();
+        assertTrue(eventBus.getStickyEvents(IntTestEvent.class).isEmpty());
+    }
+
+    public void testKeyedStickyEventsBoundedPerType() {
+        eventBus = EventBus.builder().maxKeyedStickyEventsPerType(2).build();
+        eventBus.postSticky(1, new IntTestEvent(1));
+        eventBus.postSticky(2, new IntTestEvent(2));
+        eventBus.postSticky(1, new IntTestEvent(11));
+        eventBus.postSticky(3, new IntTestEvent(3));
+
+        assertEquals(1, eventBus.getStickyEvictionCount());
+        assertNull(eventBus.getStickyEvent(IntTestEvent.class, 2));
+        assertEquals(11, eventBus.getStickyEvent(IntTestEvent.class, 1).value);
+        assertEquals(3, eventBus.getStickyEvent(IntTestEvent.class, 3).value);
+    }
+
+    public void testDistinctStickyEvents() {
+        eventBus = EventBus.builder().distinctStickyEvents(String.class).build();
+        eventBus.register(this);
+        eventBus.postSticky("Online");
+        eventBus.postSticky(new String("Online"));
+        eventBus.postSticky("Offline");
+        eventBus.postSticky("Offline");
+        assertEquals(2, eventCount.intValue());
+        assertEquals(2, eventBus.getSuppressedStickyPostCount());
+        assertEquals("Offline", eventBus.getStickyEvent(String.class));
+
+        eventBus.postSticky(new IntTestEvent(1));
+        eventBus.postSticky(new IntTestEvent(1));
+        assertEquals(4, eventCount.intValue());
+    }
+
+    public void testDistinctStickyEventsWithComparator() {
+        eventBus = EventBus.builder().distinctStickyEvents(IntTestEvent.class, new Comparator<IntTestEvent>() {
+            @Override
+            public int compare(IntTestEvent lhs, IntTestEvent rhs) {
+                return lhs.value - rhs.value;
+            }
+        }).build();
+        eventBus.register(this);
+        eventBus.postSticky(new IntTestEvent(1));
+        eventBus.postSticky(new IntTestEvent(1));
+        eventBus.postSticky(new IntTestEvent(2));
+        assertEquals(2, eventCount.intValue());
+        assertEquals(1, eventBus.getSuppressedStickyPostCount());
+    }
+
     public void testRemoveStickyEventInSubscriber() throws InterruptedException {
         eventBus.registerSticky(new Object() {
             @SuppressWarnings("unused")
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.Logger;
+import de.greenrobot.event.StickyEventFile;
+import de.greenrobot.event.StickyEventSerializer;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusStickyPersistenceTest extends AbstractEventBusTest {
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("sticky", ".events");
+        file.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testRestoreAfterRestart() {
+        EventBus first = createEventBus(1024);
+        first.postSticky("Persisted");
+        first.postSticky(new IntTestEvent(1));
+        first.flushStickyEvents();
+
+        eventBus = createEventBus(1024);
+        assertEquals("Persisted", eventBus.getStickyEvent(String.class));
+        assertNull(eventBus.getStickyEvent(IntTestEvent.class));
+    }
+
+    public void testRestoredEventDeliveredToStickySubscriber() {
+        EventBus first = createEventBus(1024);
+        first.postSticky("Persisted");
+        first.flushStickyEvents();
+
+        eventBus = createEventBus(1024);
+        eventBus.registerSticky(this);
+        assertEquals("Persisted", lastEvent);
+    }
+
+    public void testRemovalIsPersisted() {
+        EventBus first = createEventBus(1024);
+        first.postSticky("Persisted");
+        first.removeStickyEvent(String.class);
+        first.flushStickyEvents();
+
+        eventBus = createEventBus(1024);
+        assertNull(eventBus.getStickyEvent(String.class));
+    }
+
+    public void testCompaction() {
+        EventBus first = createEventBus(64);
+        for (int i = 0; i < 1000; i++) {
+            first.postSticky("Value " + i);
+            first.flushStickyEvents();
+        }
+        assertTrue(file.length() < 1024);
+
+        eventBus = createEventBus(64);
+        assertEquals("Value 999", eventBus.getStickyEvent(String.class));
+    }
+
+    public void testReadSnapshot() throws Exception {
+        EventBus first = createEventBus(1024);
+        first.postSticky("Persisted");
+        first.flushStickyEvents();
+        Map<String, byte[]> snapshot = StickyEventFile.readSnapshot(file);
+        assertEquals(1, snapshot.size());
+        assertEquals("Persisted", new String(snapshot.get(String.class.getName()), "UTF-8"));
+    }
+
+    public void testUndeserializableEventDropped() {
+        EventBus first = createEventBus(1024);
+        first.postSticky("Corrupt");
+        first.flushStickyEvents();
+
+        EventBus second = EventBus.builder().stickyEventFile(file, 1024)
+                .persistStickyEvents(String.class, new StringSerializer() {
+                    @Override
+                    public String deserialize(byte[] data) {
+                        throw new IllegalArgumentException("Corrupt");
+                    }
+                }).logger(Logger.NONE).build();
+        assertNull(second.getStickyEvent(String.class));
+        second.flushStickyEvents();
+
+        eventBus = createEventBus(1024);
+        assertNull(eventBus.getStickyEvent(String.class));
+    }
+
+    public void testUnconfiguredTypeReclaimed() throws Exception {
+        EventBus first = EventBus.builder().stickyEventFile(file, 1024)
+                .persistStickyEvents(String.class, new StringSerializer())
+                .persistStickyEvents(StringBuilder.class, new StickyEventSerializer<StringBuilder>() {
+                    @Override
+                    public byte[] serialize(StringBuilder event) {
+                        return new byte[0];
+                    }
+
+                    @Override
+                    public StringBuilder deserialize(byte[] data) {
+                        return new StringBuilder();
+                    }
+                }).build();
+        first.postSticky("Persisted");
+        first.postSticky(new StringBuilder("Builder"));
+        first.closeStickyEventFile();
+        assertEquals(2, StickyEventFile.readSnapshot(file).size());
+
+        eventBus = createEventBus(1024);
+        assertEquals(1, StickyEventFile.readSnapshot(file).size());
+        assertEquals("Persisted", eventBus.getStickyEvent(String.class));
+    }
+
+    public void testClose() throws Exception {
+        EventBus first = createEventBus(1024);
+        first.postSticky("Persisted");
+        first.closeStickyEventFile();
+        first.postSticky("Memory only");
+        assertEquals("Memory only", first.getStickyEvent(String.class));
+
+        eventBus = createEventBus(1024);
+        assertEquals("Persisted", eventBus.getStickyEvent(String.class));
+    }
+
+    private EventBus createEventBus(int capacity) {
+        return EventBus.builder().stickyEventFile(file, capacity)
+                .persistStickyEvents(String.class, new StringSerializer()).build();
+    }
+
+    public void onEvent(String event) {
+        trackEvent(event);
+    }
+
+    static class StringSerializer implements StickyEventSerializer<String> {
+        @Override
+        public byte[] serialize(String event) {
+            try {
+                return event.getBytes("UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public String deserialize(byte[] data) {
+            try {
+                return new String(data, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+}
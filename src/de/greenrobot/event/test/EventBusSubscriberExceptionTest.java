@@ -17,6 +17,7 @@ package de.greenrobot.event.test;
 
 import de.greenrobot.event.EventBus;
 import de.greenrobot.event.SubscriberExceptionEvent;
+import de.greenrobot.event.SubscriberExceptionSummaryEvent;
 
 /**
  * @author Markus Junginger, greenrobot
@@ -43,6 +44,40 @@ public class EventBusSubscriberExceptionTest extends AbstractEventBusTest {
         assertEventCount(1);
     }
 
+    public void testAggregatedSubscriberExceptions() throws InterruptedException {
+        eventBus = EventBus.builder().logSubscriberExceptions(false).aggregateSubscriberExceptions(200).build();
+        eventBus.register(this);
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("Foo");
+        }
+        eventBus.post(1);
+        // First exception per subscriber method and exception class is reported in full
+        assertEventCount(2);
+        assertEquals(IllegalStateException.class, ((SubscriberExceptionEvent) lastEvent).throwable.getClass());
+
+        waitForEventCount(3, 2000);
+        SubscriberExceptionSummaryEvent summary = (SubscriberExceptionSummaryEvent) lastEvent;
+        assertEquals(1, summary.entries.size());
+        SubscriberExceptionSummaryEvent.Entry entry = summary.entries.get(0);
+        assertEquals(RuntimeException.class, entry.exceptionClass);
+        assertEquals(String.class, entry.subscriberMethod.getParameterTypes()[0]);
+        assertEquals(9, entry.count);
+
+        // A new window reports the exception in full again
+        Thread.sleep(450);
+        eventBus.post("Foo");
+        assertEventCount(4);
+        assertEquals(SubscriberExceptionEvent.class, lastEvent.getClass());
+    }
+
+    public void onEvent(Integer event) {
+        throw new IllegalStateException("Baz");
+    }
+
+    public void onEvent(SubscriberExceptionSummaryEvent event) {
+        trackEvent(event);
+    }
+
     public void onEvent(String event) {
         throw new RuntimeException("Bar");
     }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.greenrobot.event.EventBus;
+import de.greenrobot.event.EventTap;
+
+/**
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBusTapTest extends AbstractEventBusTest {
+
+    private final List<Object> tappedEvents = new ArrayList<Object>();
+
+    private final EventTap tap = new EventTap() {
+        @Override
+        public void onEvent(Object event) {
+            tappedEvents.add(event);
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        eventBus = EventBus.builder().sendNoSubscriberEvent(false).logNoSubscriberMessages(false).build();
+    }
+
+    public void testTapReceivesAllEvents() {
+        eventBus.addTap(tap);
+        eventBus.register(this);
+        eventBus.post("Hello");
+        eventBus.post(new IntTestEvent(1));
+
+        assertEquals(2, tappedEvents.size());
+        assertEquals("Hello", tappedEvents.get(0));
+        assertEquals(1, eventCount.intValue());
+    }
+
+    public void testTapSampling() {
+        eventBus.addTap(tap, 3);
+        for (int i = 0; i < 9; i++) {
+            eventBus.post(new IntTestEvent(i));
+        }
+        assertEquals(3, tappedEvents.size());
+        assertEquals(0, ((IntTestEvent) tappedEvents.get(0)).value);
+        assertEquals(3, ((IntTestEvent) tappedEvents.get(1)).value);
+    }
+
+    public void testRemoveTap() {
+        eventBus.addTap(tap);
+        assertTrue(eventBus.removeTap(tap));
+        assertFalse(eventBus.removeTap(tap));
+        eventBus.post("Hello");
+        assertTrue(tappedEvents.isEmpty());
+    }
+
+    public void testTapExceptionDoesNotAffectDelivery() {
+        eventBus.addTap(new EventTap() {
+            @Override
+            public void onEvent(Object event) {
+                throw new RuntimeException("Bar");
+            }
+        });
+        eventBus.register(this);
+        eventBus.post("Hello");
+        assertEquals("Hello", lastEvent);
+    }
+
+    public void onEvent(String event) {
+        trackEvent(event);
+    }
+
+}
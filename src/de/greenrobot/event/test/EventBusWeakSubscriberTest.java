@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2015 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.greenrobot.event.test;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+import de.greenrobot.event.SubscriberRegistration;
+
+public class EventBusWeakSubscriberTest extends AbstractEventBusTest {
+
+    public void testRegisterWeakAndPost() {
+        StringSubscriber subscriber = new StringSubscriber();
+        eventBus.registerWeak(subscriber);
+        assertTrue(eventBus.isRegistered(subscriber));
+        eventBus.post("Hello");
+        assertEventCount(1);
+
+        eventBus.unregister(subscriber);
+        assertFalse(eventBus.isRegistered(subscriber));
+        eventBus.post("Hello");
+        assertEventCount(1);
+    }
+
+    public void testRegisterWeakTwice() {
+        StringSubscriber subscriber = new StringSubscriber();
+        eventBus.registerWeak(subscriber);
+        try {
+            eventBus.register(subscriber);
+            fail("Should have thrown");
+        } catch (RuntimeException expected) {
+            // OK
+        }
+    }
+
+    public void testCollectedSubscriberDoesNotReceiveEvents() {
+        WeakReference<StringSubscriber> reference = registerTemporarySubscriber();
+        awaitCollected(reference);
+        eventBus.post("Hello");
+        assertEventCount(0);
+
+        // Any registry update purges the collected subscriber, once the GC enqueued its reference (asynchronously)
+        for (int i = 0; i < 100 && eventBus.hasSubscriberForEvent(String.class); i++) {
+            sleep(10);
+            eventBus.register(new IntSubscriber());
+        }
+        assertFalse(eventBus.hasSubscriberForEvent(String.class));
+    }
+
+    public void testSubscribersRegisteredLongerThan() throws InterruptedException {
+        StringSubscriber subscriber = new StringSubscriber();
+        eventBus.registerWeak(subscriber);
+        eventBus.register(new IntSubscriber());
+        Thread.sleep(20);
+        eventBus.register(this);
+
+        List<SubscriberRegistration> registrations = eventBus.getSubscribersRegisteredLongerThan(20);
+        assertEquals(2, registrations.size());
+        for (SubscriberRegistration registration : registrations) {
+            assertEquals(registration.subscriberClass == StringSubscriber.class, registration.weak);
+            assertTrue(registration.registeredMillis >= 20);
+        }
+        assertEquals(3, eventBus.getSubscribersRegisteredLongerThan(0).size());
+    }
+
+    public void onEvent(Object event) {
+    }
+
+    private WeakReference<StringSubscriber> registerTemporarySubscriber() {
+        StringSubscriber subscriber = new StringSubscriber();
+        eventBus.registerWeak(subscriber);
+        return new WeakReference<StringSubscriber>(subscriber);
+    }
+
+    private void awaitCollected(WeakReference<?> reference) {
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public class StringSubscriber {
+        public void onEvent(String event) {
+            trackEvent(event);
+        }
+    }
+
+    public class IntSubscriber {
+        public void onEvent(IntTestEvent event) {
+            trackEvent(event);
+        }
+    }
+
+}